@@ -0,0 +1,59 @@
+package com.example.bankcards.config.datasource;
+
+import com.example.bankcards.security.TokenAuthentication;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers the users whose read-write transaction committed within the last {@code replica.read-your-writes}
+ * so that their reads keep going to the primary until the replicas have caught up. The user is taken from the
+ * security context of the committing thread; transactions without an authenticated user are not tracked.
+ */
+@Component
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(@Value("${replica.read-your-writes}") Duration window,
+                                 @Value("${replica.tracked-users}") long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+            return;
+        }
+        Long userId = currentUserId();
+        if (userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    public boolean currentUserWroteRecently() {
+        Long userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof TokenAuthentication tokenAuthentication) {
+            return tokenAuthentication.getTokenData().getId();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to the replicas listed in {@code replica.urls}. The
+ * application's data source is a {@link LazyConnectionDataSourceProxy}: it fetches the physical connection on the
+ * first statement, by which time the transaction manager has marked the connection read-only or not, and takes it
+ * from the primary or from {@link ReplicaRoutingDataSource} accordingly. Everything outside a read-only
+ * transaction, including Liquibase and the JDBC batch code, stays on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      ReadYourWritesTracker readYourWritesTracker,
+                                                      @Value("${replica.urls}") List<String> urls,
+                                                      @Value("${replica.username}") String username,
+                                                      @Value("${replica.password}") String password,
+                                                      @Value("${replica.pool.max-size}") int maxSize) {
+        List<HikariDataSource> replicas = IntStream.range(0, urls.size())
+                .mapToObj(i -> {
+                    HikariDataSource replica = new HikariDataSource();
+                    replica.setPoolName("replica-" + (i + 1));
+                    replica.setJdbcUrl(urls.get(i).trim());
+                    replica.setUsername(username);
+                    replica.setPassword(password);
+                    replica.setMaximumPoolSize(maxSize);
+                    replica.setReadOnly(true);
+                    return replica;
+                })
+                .toList();
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesTracker);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+}
@@ -3,7 +3,12 @@ package com.example.bankcards.config.security;
 import com.example.bankcards.exception.handler.CustomAccessDeniedHandler;
 import com.example.bankcards.exception.entrypoint.CustomAuthenticationEntryPoint;
 import com.example.bankcards.security.filter.JwtRequestFilter;
+import com.example.bankcards.security.service.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,6 +21,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -38,6 +44,7 @@ public class SecurityConfig {
     private final JwtRequestFilter jwtRequestFilter;
     private final CustomAccessDeniedHandler accessDeniedHandler;
     private final CustomAuthenticationEntryPoint authenticationEntryPoint;
+    private final ObjectProvider<UserCache> userCache;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception{
@@ -45,7 +52,8 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(request ->
-                        request.requestMatchers("api/v1/bank/cards/**", "api/v1/bank/users/**").authenticated()
+                        request.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("api/v1/bank/cards/**", "api/v1/bank/users/**").authenticated()
                         .anyRequest().permitAll()
                 )
                 .headers(headersConfigurer ->
@@ -61,14 +69,22 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public PasswordEncoder passwordEncoder(@Value("${auth.hashing.enabled}") boolean bounded,
+                                           @Value("${auth.hashing.threads}") int threads,
+                                           @Value("${auth.hashing.queue-capacity}") int queueCapacity,
+                                           MeterRegistry meterRegistry) {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(10);
+        if (!bounded) {
+            return bcrypt;
+        }
+        return new BoundedPasswordEncoder(bcrypt, threads, queueCapacity, meterRegistry);
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsServiceImpl);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
+        userCache.ifAvailable(provider::setUserCache);
         return provider;
     }
 
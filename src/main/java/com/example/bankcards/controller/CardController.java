@@ -1,16 +1,24 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.ExportFormat;
 import com.example.bankcards.dto.request.BalanceRequest;
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.BlockCardRequest;
+import com.example.bankcards.dto.request.BulkIssueCardsRequest;
 import com.example.bankcards.dto.request.ChangeCardStatusRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.request.DepositMoneyRequest;
 import com.example.bankcards.dto.request.TransferMoneyRequest;
+import com.example.bankcards.dto.response.BatchTransferResult;
+import com.example.bankcards.dto.response.BulkIssueResult;
+import com.example.bankcards.dto.response.CursorPage;
 import com.example.bankcards.dto.response.ErrorResponse;
 import com.example.bankcards.security.TokenAuthentication;
 import com.example.bankcards.security.TokenData;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.util.PageUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,7 +28,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -30,11 +41,15 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/v1/bank/cards")
@@ -42,7 +57,14 @@ import java.math.BigDecimal;
 @Tag(name = "Управление картами.", description = "Все операции требуют JWT для доступа к ним.")
 public class CardController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final CardService cardService;
+    private final IdempotencyService idempotencyService;
+
+    @Value("${pagination.max-size}")
+    private int maxPageSize;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -60,6 +82,23 @@ public class CardController {
         return ResponseEntity.ok(cardDto);
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Пакетный выпуск карт.", description = "Доступно только с ролью ADMIN. Передаются либо номера карт" +
+            " с ID пользователей, либо список ID пользователей и количество карт, номера которых генерируются." +
+            " Номера, которые повторяются или уже заняты, не выпускаются и возвращаются в ответе.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Карты выпущены.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = BulkIssueResult.class))),
+            @ApiResponse(responseCode = "400", description = "Переданы невалидные данные или номер карты был занят во время выпуска.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Не найден пользователь с одним из переданных ID.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<BulkIssueResult> issueCards(@RequestBody @Valid BulkIssueCardsRequest request) {
+        return ResponseEntity.ok(cardService.issueCards(request));
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Удаление карты по её ID", description = "Доступно только с ролью ADMIN. ID - Long типа.")
@@ -79,7 +118,7 @@ public class CardController {
                                                       @Parameter(name = "Количество карт на одной странице")int size,
                                                       Authentication authentication) {
         int validPage = Math.max(0, page);
-        int validSize = Math.max(0, size);
+        int validSize = Math.min(Math.max(0, size), maxPageSize);
         TokenAuthentication tokenAuthentication = (TokenAuthentication) authentication;
         TokenData tokenData = tokenAuthentication.getTokenData();
         Page<CardDto> cards = cardService.findAllByUserId(tokenData.getId(), validPage, validSize);
@@ -95,14 +134,22 @@ public class CardController {
                     " карта заблокирована или у нёё истёк срок действия.",
                 content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Карта с таким номером не найдена.",
+                content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "422", description = "Ключ идемпотентности уже использован для другого запроса.",
                 content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<String> depositMoney(@RequestBody @Valid DepositMoneyRequest request,
+                                               @RequestHeader(name = IDEMPOTENCY_KEY, required = false)
+                                               @Parameter(description = "Повтор запроса с тем же ключом возвращает" +
+                                                       " первый ответ без повторного пополнения.") String idempotencyKey,
                                                Authentication authentication) {
         TokenAuthentication tokenAuthentication = (TokenAuthentication) authentication;
         TokenData tokenData = tokenAuthentication.getTokenData();
-        cardService.depositMoney(tokenData.getId(), request.getCardNum(), request.getAmount());
-        return ResponseEntity.ok("The money has been successfully deposited onto the card.");
+        String operation = String.join("|", "deposit", request.getCardNum(), request.getAmount().stripTrailingZeros().toPlainString());
+        return idempotent(tokenData.getId(), idempotencyKey, operation, () -> {
+            cardService.depositMoney(tokenData.getId(), request.getCardNum(), request.getAmount());
+            return "The money has been successfully deposited onto the card.";
+        });
     }
 
     @PostMapping("/transfer")
@@ -114,14 +161,39 @@ public class CardController {
                     " карта заблокирована или у нёё истёк срок действия.",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Карта с таким номером не найдена.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "422", description = "Ключ идемпотентности уже использован для другого запроса.",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<String> transferMoney(@RequestBody @Valid TransferMoneyRequest request,
+                                                @RequestHeader(name = IDEMPOTENCY_KEY, required = false)
+                                                @Parameter(description = "Повтор запроса с тем же ключом возвращает" +
+                                                        " первый ответ без повторного перевода.") String idempotencyKey,
                                                 Authentication authentication) {
         TokenAuthentication tokenAuthentication = (TokenAuthentication) authentication;
         TokenData tokenData = tokenAuthentication.getTokenData();
-        cardService.transfer(tokenData.getId(), request.getFromCardNum(), request.getToCardNum(), request.getAmount());
-        return ResponseEntity.ok("Money transfer successfully completed.");
+        String operation = String.join("|", "transfer", request.getFromCardNum(), request.getToCardNum(),
+                request.getAmount().stripTrailingZeros().toPlainString());
+        return idempotent(tokenData.getId(), idempotencyKey, operation, () -> {
+            cardService.transfer(tokenData.getId(), request.getFromCardNum(), request.getToCardNum(), request.getAmount());
+            return "Money transfer successfully completed.";
+        });
+    }
+
+    @PostMapping("/transfers/batch")
+    @Operation(summary = "Пакетный перевод баланса с карты на карту.", description = "Карты, с которых переводятся деньги," +
+            " должны принадлежать пользователю. Результат возвращается для каждого перевода в порядке их передачи.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пакет обработан, результат каждого перевода в ответе.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = BatchTransferResult.class))),
+            @ApiResponse(responseCode = "400", description = "Переданы невалидные данные.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<List<BatchTransferResult>> transferMoneyBatch(@RequestBody @Valid BatchTransferRequest request,
+                                                                        Authentication authentication) {
+        TokenAuthentication tokenAuthentication = (TokenAuthentication) authentication;
+        TokenData tokenData = tokenAuthentication.getTokenData();
+        return ResponseEntity.ok(cardService.transferBatch(tokenData.getId(), request.getTransfers()));
     }
 
     @PostMapping("/changeStatus")
@@ -158,17 +230,60 @@ public class CardController {
 
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Получение всех карт с пагинацией.", description = "Доступно только с ролью ADMIN.")
+    @Operation(summary = "Получение всех карт с пагинацией.", description = "Доступно только с ролью ADMIN. " +
+            "По умолчанию totalElements берётся из статистики таблицы и помечается заголовком " +
+            PageUtil.APPROXIMATE_TOTAL_HEADER + "; точный подсчёт - с exactTotal=true.")
     @ApiResponse(responseCode = "200", description = "Запрос успешно выполнен.",
             content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Page.class)))
     public ResponseEntity<Page<CardDto>> findAllCards(@RequestParam(defaultValue = "0")
                                                       @Parameter(name = "Номер страницы") int page,
                                                       @Parameter(name = "Количество карт на одной странице")
-                                                      @RequestParam(defaultValue = "10") int size) {
+                                                      @RequestParam(defaultValue = "10") int size,
+                                                      @Parameter(name = "Точное количество карт")
+                                                      @RequestParam(defaultValue = "false") boolean exactTotal) {
         int validPage = Math.max(0, page);
-        int validSize = Math.max(0, size);
-        Page<CardDto> cards = cardService.findAll(validPage, validSize);
-        return ResponseEntity.ok(cards);
+        int validSize = Math.min(Math.max(0, size), maxPageSize);
+        if (exactTotal) {
+            return ResponseEntity.ok(cardService.findAll(validPage, validSize));
+        }
+        Page<CardDto> cards = cardService.findAllWithApproximateTotal(validPage, validSize);
+        return ResponseEntity.ok()
+                .header(PageUtil.APPROXIMATE_TOTAL_HEADER, "true")
+                .body(cards);
+    }
+
+    @GetMapping("/all/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Получение всех карт постранично по курсору.", description = "Доступно только с ролью ADMIN. " +
+            "Для следующей страницы передайте nextCursor из предыдущего ответа; на последней странице он равен null.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Запрос успешно выполнен."),
+            @ApiResponse(responseCode = "400", description = "Передан невалидный курсор.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<CursorPage<CardDto>> findAllCardsByCursor(@RequestParam(required = false)
+                                                                    @Parameter(name = "Курсор следующей страницы") String cursor,
+                                                                    @Parameter(name = "Количество карт на одной странице")
+                                                                    @RequestParam(defaultValue = "10") int size) {
+        int validSize = Math.min(Math.max(1, size), maxPageSize);
+        return ResponseEntity.ok(cardService.findAllAfter(cursor, validSize));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Выгрузка всех карт потоком в NDJSON или CSV.", description = "Доступно только с ролью ADMIN. " +
+            "Номера карт маскируются так же, как в остальных ответах.")
+    @ApiResponse(responseCode = "200", description = "Выгрузка начата.")
+    public ResponseEntity<StreamingResponseBody> exportCards(@RequestParam(defaultValue = "NDJSON")
+                                                             @Parameter(name = "Формат выгрузки") ExportFormat format) {
+        StreamingResponseBody body = outputStream -> cardService.exportAll(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("cards." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     @GetMapping("/balance")
@@ -188,4 +303,28 @@ public class CardController {
         return ResponseEntity.ok(balance);
     }
 
+    @GetMapping("/{id}/ledger/balance")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Баланс карты на момент операции с заданным порядковым номером.",
+            description = "Доступно только с ролью ADMIN. Баланс пересчитывается от ближайшей контрольной точки.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Баланс успешно получен"),
+            @ApiResponse(responseCode = "404", description = "Карта не найдена.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<BigDecimal> getBalanceAt(@PathVariable("id") Long cardId,
+                                                   @RequestParam @Parameter(name = "Порядковый номер операции") long seq) {
+        return ResponseEntity.ok(cardService.getBalanceAt(cardId, seq));
+    }
+
+    private ResponseEntity<String> idempotent(Long userId, String idempotencyKey, String operation, Supplier<String> action) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(action.get());
+        }
+        IdempotencyService.Result result = idempotencyService.execute(userId, idempotencyKey, operation, action);
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(result.replayed()))
+                .body(result.response());
+    }
+
 }
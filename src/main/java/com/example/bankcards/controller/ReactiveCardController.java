@@ -0,0 +1,74 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.request.BalanceRequest;
+import com.example.bankcards.dto.response.ErrorResponse;
+import com.example.bankcards.security.TokenAuthentication;
+import com.example.bankcards.security.TokenData;
+import com.example.bankcards.service.ReactiveCardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@RestController
+@RequestMapping("/api/v1/bank/cards/reactive")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reactive-reads.enabled", havingValue = "true")
+@Tag(name = "Неблокирующее чтение карт.", description = "Те же запросы, что и в управлении картами, " +
+        "но без блокировки потока на время обращения к базе. Требуют JWT.")
+public class ReactiveCardController {
+
+    private final ReactiveCardService reactiveCardService;
+
+    @Value("${pagination.max-size}")
+    private int maxPageSize;
+
+    @GetMapping
+    @Operation(summary = "Получение всех карт, которые принадлежат пользователю, с пагинацией.")
+    @ApiResponse(responseCode = "200", description = "Запрос успешно выполнен.",
+        content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Page.class)))
+    public Mono<Page<CardDto>> findAllYourCards(@RequestParam(defaultValue = "0")
+                                                @Parameter(name = "Номер страницы") int page,
+                                                @RequestParam(defaultValue = "10")
+                                                @Parameter(name = "Количество карт на одной странице") int size,
+                                                Authentication authentication) {
+        int validPage = Math.max(0, page);
+        int validSize = Math.min(Math.max(1, size), maxPageSize);
+        TokenData tokenData = ((TokenAuthentication) authentication).getTokenData();
+        return reactiveCardService.findAllByUserId(tokenData.getId(), validPage, validSize);
+    }
+
+    @GetMapping("/balance")
+    @Operation(summary = "Получение баланса карты.", description = "Карта должна принадлежать пользователю.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Баланс успешно получен"),
+            @ApiResponse(responseCode = "400", description = "Переданы невалидные данные.",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Карта не найдена или не принадлежит пользователю.",
+                content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public Mono<BigDecimal> getBalance(@RequestBody @Valid BalanceRequest request, Authentication authentication) {
+        TokenData tokenData = ((TokenAuthentication) authentication).getTokenData();
+        return reactiveCardService.getBalance(tokenData.getId(), request.getCardNum());
+    }
+
+}
@@ -2,7 +2,9 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.request.UserRegistrationRequest;
+import com.example.bankcards.dto.response.CursorPage;
 import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.PageUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.links.LinkParameter;
@@ -12,6 +14,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +37,9 @@ public class UserController {
 
     private final UserService userService;
 
+    @Value("${pagination.max-size}")
+    private int maxPageSize;
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Создание пользователя с ролью USER.", description = "Доступно только с ролью ADMIN.")
@@ -59,17 +65,43 @@ public class UserController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Возвращение всех пользователей с пагинацией.", description = "Доступно только с ролью ADMIN.")
+    @Operation(summary = "Возвращение всех пользователей с пагинацией.", description = "Доступно только с ролью ADMIN. " +
+            "По умолчанию totalElements берётся из статистики таблицы и помечается заголовком " +
+            PageUtil.APPROXIMATE_TOTAL_HEADER + "; точный подсчёт - с exactTotal=true.")
     @ApiResponse(responseCode = "200", description = "Запрос на получение пользователей успешно выполнен.",
         content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Page.class)))
     public ResponseEntity<Page<UserDto>> findAll(@RequestParam(defaultValue = "0")
                                                  @Parameter(name = "Номер страницы") int page,
                                                  @RequestParam(defaultValue = "10")
-                                                 @Parameter(name = "Количество пользователей на одной странице") int size) {
+                                                 @Parameter(name = "Количество пользователей на одной странице") int size,
+                                                 @RequestParam(defaultValue = "false")
+                                                 @Parameter(name = "Точное количество пользователей") boolean exactTotal) {
         int validPage = Math.max(0, page);
-        int validSize = Math.max(0, size);
-        Page<UserDto> users = userService.findAll(validPage, validSize);
-        return ResponseEntity.ok(users);
+        int validSize = Math.min(Math.max(0, size), maxPageSize);
+        if (exactTotal) {
+            return ResponseEntity.ok(userService.findAll(validPage, validSize));
+        }
+        Page<UserDto> users = userService.findAllWithApproximateTotal(validPage, validSize);
+        return ResponseEntity.ok()
+                .header(PageUtil.APPROXIMATE_TOTAL_HEADER, "true")
+                .body(users);
+    }
+
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Возвращение всех пользователей постранично по курсору.", description = "Доступно только с ролью ADMIN. " +
+            "Для следующей страницы передайте nextCursor из предыдущего ответа; на последней странице он равен null.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Запрос на получение пользователей успешно выполнен."),
+            @ApiResponse(responseCode = "400", description = "Передан невалидный курсор.",
+                content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<CursorPage<UserDto>> findAllByCursor(@RequestParam(required = false)
+                                                               @Parameter(name = "Курсор следующей страницы") String cursor,
+                                                               @RequestParam(defaultValue = "10")
+                                                               @Parameter(name = "Количество пользователей на одной странице") int size) {
+        int validSize = Math.min(Math.max(1, size), maxPageSize);
+        return ResponseEntity.ok(userService.findAllAfter(cursor, validSize));
     }
 
 }
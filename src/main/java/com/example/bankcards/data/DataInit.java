@@ -25,9 +25,7 @@ public class DataInit {
     void init() {
         Optional<Role> role = roleRepository.findByName("ADMIN");
 
-        Optional<User> user = userRepository.findByUsername("ADMIN");
-
-        if (user.isPresent()) {
+        if (userRepository.existsByUsername("ADMIN")) {
             return;
         }
 
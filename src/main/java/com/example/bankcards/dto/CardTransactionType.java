@@ -0,0 +1,9 @@
+package com.example.bankcards.dto;
+
+public enum CardTransactionType {
+
+    DEPOSIT,
+    TRANSFER_IN,
+    TRANSFER_OUT
+
+}
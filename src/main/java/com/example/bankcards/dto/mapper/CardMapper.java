@@ -1,6 +1,7 @@
 package com.example.bankcards.dto.mapper;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.projection.CardView;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.util.NumberEncryptionUtil;
 
@@ -17,4 +18,15 @@ public class CardMapper {
                 .build();
     }
 
+    public static CardDto toDto(CardView card) {
+        return CardDto.builder()
+                .id(card.id())
+                .cardNum(NumberEncryptionUtil.encryptCardNumber(card.cardNum()))
+                .owner(card.owner())
+                .expirationDate(card.expirationDate())
+                .status(card.status().toString())
+                .balance(card.balance())
+                .build();
+    }
+
 }
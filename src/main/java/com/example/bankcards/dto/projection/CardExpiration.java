@@ -0,0 +1,6 @@
+package com.example.bankcards.dto.projection;
+
+import java.time.LocalDateTime;
+
+public record CardExpiration(Long id, LocalDateTime expirationDate) {
+}
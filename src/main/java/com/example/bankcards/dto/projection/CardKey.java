@@ -0,0 +1,6 @@
+package com.example.bankcards.dto.projection;
+
+import com.example.bankcards.dto.CardStatus;
+
+public record CardKey(Long id, String cardNum, Long userId, CardStatus status) {
+}
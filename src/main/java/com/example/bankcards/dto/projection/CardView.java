@@ -0,0 +1,10 @@
+package com.example.bankcards.dto.projection;
+
+import com.example.bankcards.dto.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record CardView(Long id, String cardNum, String owner, LocalDateTime expirationDate, CardStatus status,
+                       BigDecimal balance) {
+}
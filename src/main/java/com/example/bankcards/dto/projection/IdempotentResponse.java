@@ -0,0 +1,4 @@
+package com.example.bankcards.dto.projection;
+
+public record IdempotentResponse(long requestHash, String response) {
+}
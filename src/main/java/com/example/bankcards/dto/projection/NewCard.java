@@ -0,0 +1,6 @@
+package com.example.bankcards.dto.projection;
+
+import java.time.LocalDateTime;
+
+public record NewCard(long id, String cardNum, String owner, LocalDateTime expirationDate, Long userId) {
+}
@@ -0,0 +1,6 @@
+package com.example.bankcards.dto.projection;
+
+import java.math.BigDecimal;
+
+public record TransferItem(int index, CardKey from, CardKey to, BigDecimal amount) {
+}
@@ -0,0 +1,4 @@
+package com.example.bankcards.dto.projection;
+
+public record UserCredentials(Long id, String password, String role) {
+}
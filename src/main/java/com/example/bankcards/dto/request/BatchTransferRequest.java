@@ -0,0 +1,25 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferRequest {
+
+    @NotEmpty(message = "The list of transfers must not be empty!")
+    @Size(max = 10000, message = "No more than 10000 transfers can be sent in one batch!")
+    private List<@Valid TransferMoneyRequest> transfers;
+
+}
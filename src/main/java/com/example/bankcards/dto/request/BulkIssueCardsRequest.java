@@ -0,0 +1,45 @@
+package com.example.bankcards.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkIssueCardsRequest {
+
+    @Size(max = 100000, message = "No more than 100000 cards can be issued in one request!")
+    private List<@Valid CreateCardRequest> cards;
+
+    @Size(max = 10000, message = "No more than 10000 users can be given in one request!")
+    private List<@NotNull(message = "The user id must not be null!") Long> userIds;
+
+    @Min(value = 1, message = "At least one card per user must be issued!")
+    @Max(value = 100, message = "No more than 100 cards per user can be issued in one request!")
+    private Integer cardsPerUser;
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    @AssertTrue(message = "Either cards or userIds with cardsPerUser must be given!")
+    public boolean isSingleSource() {
+        boolean given = cards != null && !cards.isEmpty();
+        boolean generated = userIds != null && !userIds.isEmpty() && cardsPerUser != null;
+        return given != generated;
+    }
+
+}
@@ -1,6 +1,6 @@
 package com.example.bankcards.dto.request;
 
-import jakarta.validation.constraints.NotBlank;
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -16,8 +16,8 @@ import lombok.Setter;
 @Builder
 public class CreateCardRequest {
 
+    @Schema(description = "Если не передан, номер выдаётся банком.")
     @Size(min = 16, max = 16, message = "The card number must be 16 characters long!")
-    @NotBlank(message = "The card number must not be blank!")
     private String cardNum;
 
     @NotNull(message = "The card number must not be null!")
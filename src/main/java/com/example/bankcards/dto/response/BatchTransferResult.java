@@ -0,0 +1,28 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResult {
+
+    private int index;
+    private boolean success;
+    private String error;
+
+    public static BatchTransferResult success(int index) {
+        return new BatchTransferResult(index, true, null);
+    }
+
+    public static BatchTransferResult failed(int index, String error) {
+        return new BatchTransferResult(index, false, error);
+    }
+
+}
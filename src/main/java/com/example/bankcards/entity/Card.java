@@ -1,22 +1,29 @@
 package com.example.bankcards.entity;
 
 import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.repository.CardKeyIndexListener;
+import com.example.bankcards.util.CardKeyUtil;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -27,17 +34,24 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@DynamicUpdate
 @Table(name = "cards")
+@EntityListeners(CardKeyIndexListener.class)
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_id_seq")
+    @SequenceGenerator(name = "cards_id_seq", sequenceName = "cards_id_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
-    @Column(name = "card_num", unique = true, nullable = false)
+    @Column(name = "card_num", nullable = false)
     private String cardNum;
 
+    // Computed by the database; set here instead of being read back, which would rule out batched inserts.
+    @Column(name = "card_key", unique = true, insertable = false, updatable = false)
+    private Long cardKey;
+
     @Column(name = "owner", nullable = false)
     private String owner;
 
@@ -51,8 +65,13 @@ public class Card {
     @Column(name = "balance", precision = 20, scale = 2, nullable = false)
     private BigDecimal balance;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "user_id")
     private User user;
 
+    @PrePersist
+    void computeCardKey() {
+        cardKey = CardKeyUtil.toCardKey(cardNum);
+    }
+
 }
@@ -0,0 +1,16 @@
+package com.example.bankcards.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private final HttpStatus httpStatus;
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+        this.httpStatus = HttpStatus.UNPROCESSABLE_ENTITY;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    private final HttpStatus httpStatus;
+
+    public PasswordHashingOverloadedException(String message) {
+        super(message);
+        this.httpStatus = HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+}
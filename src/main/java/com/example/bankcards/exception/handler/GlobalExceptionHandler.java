@@ -3,11 +3,14 @@ package com.example.bankcards.exception.handler;
 import com.example.bankcards.dto.response.ErrorResponse;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardNumberTakenException;
+import com.example.bankcards.exception.IdempotencyKeyReusedException;
 import com.example.bankcards.exception.ImpossibleMoneyTransferException;
 import com.example.bankcards.exception.InvalidCardNumberException;
+import com.example.bankcards.exception.PasswordHashingOverloadedException;
 import com.example.bankcards.exception.RoleNotFoundException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.exception.UsernameTakenException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -83,6 +86,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(ex.getHttpStatus()).body(errorResponse);
     }
 
+    @ExceptionHandler(PasswordHashingOverloadedException.class)
+    public ResponseEntity<ErrorResponse> passwordHashingOverloaded(PasswordHashingOverloadedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(Map.of("error", ex.getMessage()));
+        return ResponseEntity.status(ex.getHttpStatus())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorResponse> idempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(Map.of("error", ex.getMessage()));
+        return ResponseEntity.status(ex.getHttpStatus()).body(errorResponse);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> illegalArgument(IllegalArgumentException ex) {
         ErrorResponse errorResponse = new ErrorResponse(Map.of("error", ex.getMessage()));
@@ -0,0 +1,204 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.CardTransactionType;
+import com.example.bankcards.dto.projection.CardExpiration;
+import com.example.bankcards.dto.projection.ExpiredCard;
+import com.example.bankcards.dto.projection.NewCard;
+import com.example.bankcards.dto.projection.TransferItem;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class CardBatchRepository {
+
+    /**
+     * Matches the allocation size of the id generator of {@code Card}.
+     */
+    public static final int ID_BLOCK_SIZE = 50;
+
+    /**
+     * Cards are split into this many expiry buckets by {@code id % EXPIRY_BUCKETS}, the expression indexed by
+     * {@code idx_cards_status_expiry_bucket}; the SQL must spell it out with the same constant to use the index.
+     */
+    public static final int EXPIRY_BUCKETS = 64;
+
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Map<Long, CardStatus> lockInIdOrder(Collection<Long> ids) {
+        Map<Long, CardStatus> statuses = new HashMap<>();
+        jdbcTemplate.query("SELECT id, status FROM cards WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                Map.of("ids", Set.copyOf(ids)),
+                rs -> {
+                    statuses.put(rs.getLong("id"), CardStatus.valueOf(rs.getString("status")));
+                });
+        return statuses;
+    }
+
+    public List<ExpiredCard> expireChunk(CardStatus status, LocalDateTime now, int bucket,
+                                         LocalDateTime lastExpirationDate, long lastId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("status", status.name())
+                .addValue("bucket", bucket)
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("lastExpirationDate", Timestamp.valueOf(lastExpirationDate))
+                .addValue("lastId", lastId)
+                .addValue("limit", limit);
+        return jdbcTemplate.query("UPDATE cards SET status = 'EXPIRED' " +
+                        "WHERE id IN (" +
+                        "    SELECT id FROM cards" +
+                        "    WHERE status = :status AND id % " + EXPIRY_BUCKETS + " = :bucket" +
+                        "    AND expiration_date < :now" +
+                        "    AND (expiration_date, id) > (:lastExpirationDate, :lastId)" +
+                        "    ORDER BY expiration_date, id" +
+                        "    LIMIT :limit" +
+                        "    FOR UPDATE SKIP LOCKED" +
+                        ") " +
+                        "RETURNING id, card_key, user_id, expiration_date",
+                params,
+                (rs, rowNum) -> new ExpiredCard(
+                        rs.getLong("id"),
+                        rs.getLong("card_key"),
+                        rs.getObject("user_id", Long.class),
+                        rs.getTimestamp("expiration_date").toLocalDateTime()));
+    }
+
+    public List<CardExpiration> findExpiringBetween(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT id, expiration_date FROM cards " +
+                        "WHERE status IN ('ACTIVE', 'BLOCKED') AND expiration_date >= :from AND expiration_date < :to",
+                Map.of("from", Timestamp.valueOf(from), "to", Timestamp.valueOf(to)),
+                (rs, rowNum) -> new CardExpiration(rs.getLong("id"), rs.getTimestamp("expiration_date").toLocalDateTime()));
+    }
+
+    public List<ExpiredCard> expireDue(Collection<Long> ids, LocalDateTime now) {
+        return jdbcTemplate.query("UPDATE cards SET status = 'EXPIRED' " +
+                        "WHERE id IN (" +
+                        "    SELECT id FROM cards" +
+                        "    WHERE id IN (:ids) AND status IN ('ACTIVE', 'BLOCKED') AND expiration_date <= :now" +
+                        "    FOR UPDATE SKIP LOCKED" +
+                        ") " +
+                        "RETURNING id, card_key, user_id, expiration_date",
+                Map.of("ids", Set.copyOf(ids), "now", Timestamp.valueOf(now)),
+                (rs, rowNum) -> new ExpiredCard(
+                        rs.getLong("id"),
+                        rs.getLong("card_key"),
+                        rs.getObject("user_id", Long.class),
+                        rs.getTimestamp("expiration_date").toLocalDateTime()));
+    }
+
+    /**
+     * Reads without locking, so cards that {@link #expireDue} skipped because a transaction held them are found.
+     */
+    public List<Long> findDue(Collection<Long> ids, LocalDateTime now) {
+        return jdbcTemplate.queryForList("SELECT id FROM cards " +
+                        "WHERE id IN (:ids) AND status IN ('ACTIVE', 'BLOCKED') AND expiration_date <= :now",
+                Map.of("ids", Set.copyOf(ids), "now", Timestamp.valueOf(now)), Long.class);
+    }
+
+    public int[] debit(List<TransferItem> items) {
+        SqlParameterSource[] params = items.stream()
+                .map(item -> new MapSqlParameterSource()
+                        .addValue("id", item.from().id())
+                        .addValue("amount", item.amount())
+                        .addValue("counterpartyId", item.to().id()))
+                .toArray(SqlParameterSource[]::new);
+        return jdbcTemplate.batchUpdate(CardRepository.DEBIT_SQL, params);
+    }
+
+    public int[] credit(List<TransferItem> items) {
+        SqlParameterSource[] params = items.stream()
+                .map(item -> new MapSqlParameterSource()
+                        .addValue("id", item.to().id())
+                        .addValue("amount", item.amount())
+                        .addValue("type", CardTransactionType.TRANSFER_IN.name())
+                        .addValue("counterpartyId", item.from().id()))
+                .toArray(SqlParameterSource[]::new);
+        return jdbcTemplate.batchUpdate(CardRepository.CREDIT_SQL, params);
+    }
+
+    public Map<Long, String> findOwnerNames(Collection<Long> userIds) {
+        Map<Long, String> owners = new HashMap<>();
+        jdbcTemplate.query("SELECT id, full_name FROM users WHERE id = ANY(:ids)",
+                Map.of("ids", userIds.toArray(Long[]::new)),
+                rs -> {
+                    owners.put(rs.getLong("id"), rs.getString("full_name"));
+                });
+        return owners;
+    }
+
+    public Set<Long> findTakenCardKeys(Collection<Long> cardKeys) {
+        return Set.copyOf(jdbcTemplate.queryForList("SELECT card_key FROM cards WHERE card_key = ANY(:cardKeys)",
+                Map.of("cardKeys", cardKeys.toArray(Long[]::new)), Long.class));
+    }
+
+    /**
+     * Takes ids from {@code cards_id_seq} the way the pooled-lo optimizer of Hibernate does: every value of the
+     * sequence starts a block of {@link #ID_BLOCK_SIZE} ids, so these never collide with ids handed out by JPA.
+     */
+    public long[] allocateIds(int count) {
+        List<Long> blocks = jdbcTemplate.queryForList("SELECT nextval('cards_id_seq') FROM generate_series(1, :blocks)",
+                Map.of("blocks", (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE), Long.class);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = blocks.get(i / ID_BLOCK_SIZE) + i % ID_BLOCK_SIZE;
+        }
+        return ids;
+    }
+
+    /**
+     * Loads new ACTIVE cards with a zero balance through {@code COPY}, on the connection of the current transaction.
+     */
+    public long copyIn(List<NewCard> cards) {
+        Long copied = jdbcTemplate.getJdbcOperations().execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY cards " +
+                    "(id, card_num, owner, expiration_date, status, balance, user_id) FROM STDIN (FORMAT csv)");
+            try {
+                StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 256);
+                for (NewCard card : cards) {
+                    buffer.append(card.id()).append(',')
+                            .append(card.cardNum()).append(',')
+                            .append('"').append(card.owner().replace("\"", "\"\"")).append('"').append(',')
+                            .append(card.expirationDate()).append(',')
+                            .append("ACTIVE,0,")
+                            .append(card.userId()).append('\n');
+                    if (buffer.length() >= COPY_BUFFER_SIZE) {
+                        write(copyIn, buffer);
+                    }
+                }
+                write(copyIn, buffer);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+        return copied == null ? 0 : copied;
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+}
@@ -0,0 +1,264 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.CardKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap open-addressing table from card key to (card id, user id, status), stored in direct buffers of
+ * 32-byte slots. Linear probing with backward-shift deletion, so there are no tombstones. Readers go through
+ * an optimistic read of a single StampedLock and only take the read lock when a writer got in between.
+ * Holds up to {@code card-index.capacity} cards at a load factor of at most 0.75; further cards are simply
+ * not indexed and get resolved through the database.
+ * <p>
+ * Only the writes of this node reach the index, so entries may be stale: callers confirm a refusal based on an
+ * entry against the database. While the startup load runs, keys written by this node are remembered and the
+ * rows of the load skip them, so a snapshot row never brings back an entry a later commit has changed.
+ */
+@Slf4j
+@Component
+public class CardKeyIndex {
+
+    private static final int SLOT_BYTES = 32;
+    private static final int KEY_OFFSET = 0;
+    private static final int ID_OFFSET = 8;
+    private static final int USER_ID_OFFSET = 16;
+    private static final int STATUS_OFFSET = 24;
+    private static final int MAX_SEGMENT_SHIFT = 20;
+    private static final long NO_USER = -1L;
+    private static final CardStatus[] STATUSES = CardStatus.values();
+
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final long slotMask;
+    private final long maxEntries;
+    private final StampedLock lock = new StampedLock();
+    private long size;
+    private Set<Long> touchedWhileLoading;
+
+    public CardKeyIndex(@Value("${card-index.capacity}") long capacity) {
+        if (capacity <= 0) {
+            segments = new ByteBuffer[0];
+            segmentShift = 0;
+            segmentMask = 0;
+            slotMask = -1;
+            maxEntries = 0;
+            return;
+        }
+
+        long slots = Long.highestOneBit(capacity + capacity / 3) << 1;
+        segmentShift = Math.min(Long.numberOfTrailingZeros(slots), MAX_SEGMENT_SHIFT);
+        segmentMask = (1 << segmentShift) - 1;
+        slotMask = slots - 1;
+        maxEntries = capacity;
+        segments = new ByteBuffer[(int) (slots >>> segmentShift)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect((1 << segmentShift) * SLOT_BYTES);
+        }
+        log.info("Card key index allocated: {} slots, {} MB off-heap.", slots, slots * SLOT_BYTES >> 20);
+    }
+
+    public CardKey find(String cardNum, long cardKey) {
+        if (segments.length == 0) {
+            return null;
+        }
+        long stamp = lock.tryOptimisticRead();
+        CardKey result = probe(cardNum, cardKey);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = probe(cardNum, cardKey);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    public void put(long cardKey, long id, Long userId, CardStatus status) {
+        write(cardKey, id, userId, status, true);
+    }
+
+    public void startLoading() {
+        long stamp = lock.writeLock();
+        try {
+            touchedWhileLoading = new HashSet<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a row read by the startup load, unless the key is already indexed or has been written since
+     * {@link #startLoading()}.
+     */
+    public void load(long cardKey, long id, Long userId, CardStatus status) {
+        write(cardKey, id, userId, status, false);
+    }
+
+    public void finishLoading() {
+        long stamp = lock.writeLock();
+        try {
+            touchedWhileLoading = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long cardKey) {
+        if (segments.length == 0) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (touchedWhileLoading != null) {
+                touchedWhileLoading.add(cardKey);
+            }
+            long slot = slotOf(cardKey);
+            while (true) {
+                long stored = key(slot);
+                if (stored == 0) {
+                    return;
+                }
+                if (stored == cardKey + 1) {
+                    break;
+                }
+                slot = (slot + 1) & slotMask;
+            }
+
+            // Pull later entries of the probe chain back into the hole, so lookups never stop early.
+            long hole = slot;
+            long next = (hole + 1) & slotMask;
+            while (key(next) != 0) {
+                long home = slotOf(key(next) - 1);
+                if (((next - home) & slotMask) >= ((next - hole) & slotMask)) {
+                    copySlot(next, hole);
+                    hole = next;
+                }
+                next = (next + 1) & slotMask;
+            }
+            clearSlot(hole);
+            size--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void write(long cardKey, long id, Long userId, CardStatus status, boolean overwrite) {
+        if (segments.length == 0) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (touchedWhileLoading != null) {
+                if (overwrite) {
+                    touchedWhileLoading.add(cardKey);
+                } else if (touchedWhileLoading.contains(cardKey)) {
+                    return;
+                }
+            }
+            long slot = slotOf(cardKey);
+            while (true) {
+                long stored = key(slot);
+                if (stored == cardKey + 1) {
+                    if (overwrite) {
+                        writeSlot(slot, cardKey, id, userId, status);
+                    }
+                    return;
+                }
+                if (stored == 0) {
+                    if (size >= maxEntries) {
+                        return;
+                    }
+                    writeSlot(slot, cardKey, id, userId, status);
+                    size++;
+                    return;
+                }
+                slot = (slot + 1) & slotMask;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private CardKey probe(String cardNum, long cardKey) {
+        long slot = slotOf(cardKey);
+        // Bounded so that a torn optimistic read can never spin forever.
+        for (long i = 0; i <= slotMask; i++) {
+            ByteBuffer segment = segments[(int) (slot >>> segmentShift)];
+            int offset = ((int) slot & segmentMask) * SLOT_BYTES;
+            long stored = segment.getLong(offset + KEY_OFFSET);
+            if (stored == 0) {
+                return null;
+            }
+            if (stored == cardKey + 1) {
+                long userId = segment.getLong(offset + USER_ID_OFFSET);
+                int status = segment.get(offset + STATUS_OFFSET);
+                if (status < 0 || status >= STATUSES.length) {
+                    return null;
+                }
+                return new CardKey(segment.getLong(offset + ID_OFFSET), cardNum,
+                        userId == NO_USER ? null : userId, STATUSES[status]);
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return null;
+    }
+
+    private long slotOf(long cardKey) {
+        long hash = cardKey;
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (hash ^ (hash >>> 33)) & slotMask;
+    }
+
+    // Keys are stored shifted by one, so that an all-zero slot means empty even for card number 0000000000000000.
+    private long key(long slot) {
+        return segments[(int) (slot >>> segmentShift)].getLong(((int) slot & segmentMask) * SLOT_BYTES + KEY_OFFSET);
+    }
+
+    private void writeSlot(long slot, long cardKey, long id, Long userId, CardStatus status) {
+        ByteBuffer segment = segments[(int) (slot >>> segmentShift)];
+        int offset = ((int) slot & segmentMask) * SLOT_BYTES;
+        segment.putLong(offset + ID_OFFSET, id);
+        segment.putLong(offset + USER_ID_OFFSET, userId == null ? NO_USER : userId);
+        segment.put(offset + STATUS_OFFSET, (byte) status.ordinal());
+        segment.putLong(offset + KEY_OFFSET, cardKey + 1);
+    }
+
+    private void copySlot(long from, long to) {
+        ByteBuffer source = segments[(int) (from >>> segmentShift)];
+        ByteBuffer target = segments[(int) (to >>> segmentShift)];
+        int sourceOffset = ((int) from & segmentMask) * SLOT_BYTES;
+        int targetOffset = ((int) to & segmentMask) * SLOT_BYTES;
+        for (int i = 0; i < SLOT_BYTES; i += Long.BYTES) {
+            target.putLong(targetOffset + i, source.getLong(sourceOffset + i));
+        }
+    }
+
+    private void clearSlot(long slot) {
+        ByteBuffer segment = segments[(int) (slot >>> segmentShift)];
+        int offset = ((int) slot & segmentMask) * SLOT_BYTES;
+        for (int i = 0; i < SLOT_BYTES; i += Long.BYTES) {
+            segment.putLong(offset + i, 0L);
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.util.CardKeyUtil;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+@RequiredArgsConstructor
+public class CardKeyIndexListener {
+
+    private final CardKeyIndex cardKeyIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Card card) {
+        long cardKey = CardKeyUtil.toCardKey(card.getCardNum());
+        long id = card.getId();
+        Long userId = card.getUser() == null ? null : card.getUser().getId();
+        afterCommit(() -> cardKeyIndex.put(cardKey, id, userId, card.getStatus()));
+    }
+
+    @PostRemove
+    public void onRemove(Card card) {
+        long cardKey = CardKeyUtil.toCardKey(card.getCardNum());
+        afterCommit(() -> cardKeyIndex.remove(cardKey));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
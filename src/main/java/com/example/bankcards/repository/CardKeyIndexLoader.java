@@ -0,0 +1,50 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardKeyIndexLoader {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final CardKeyIndex cardKeyIndex;
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+
+    // The application already serves requests while this runs; cards not loaded yet are resolved through the database.
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        long started = System.currentTimeMillis();
+        cardKeyIndex.startLoading();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.query("SELECT id, card_key, user_id, status FROM cards", rs -> {
+                        long userId = rs.getLong("user_id");
+                        cardKeyIndex.load(rs.getLong("card_key"), rs.getLong("id"),
+                                rs.wasNull() ? null : userId, CardStatus.valueOf(rs.getString("status")));
+                    }));
+        } finally {
+            cardKeyIndex.finishLoading();
+        }
+        log.info("Card key index loaded with {} cards in {} ms.", cardKeyIndex.size(),
+                System.currentTimeMillis() - started);
+    }
+
+}
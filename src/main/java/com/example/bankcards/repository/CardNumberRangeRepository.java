@@ -0,0 +1,46 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class CardNumberRangeRepository {
+
+    private static final long KEYS_PER_PREFIX = 10_000_000_000L;
+    private static final long ACCOUNTS = 1_000_000_000L;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * The first lease of a prefix starts above the largest account already issued under it, so cards that were
+     * created with the prefix before the ranges existed are never handed out again.
+     *
+     * @return the first account number of a range of {@code size} numbers no other caller will get
+     */
+    public long lease(String prefix, long size) {
+        Map<String, Object> params = Map.of("prefix", prefix, "size", size);
+        List<Long> start = advance(params);
+        if (start.isEmpty()) {
+            long firstKey = Long.parseLong(prefix) * KEYS_PER_PREFIX;
+            jdbcTemplate.update("INSERT INTO card_number_ranges (prefix, next_account) " +
+                            "SELECT :prefix, COALESCE(MAX(card_key) / 10 % :accounts + 1, 0) FROM cards " +
+                            "WHERE card_key BETWEEN :firstKey AND :lastKey " +
+                            "ON CONFLICT (prefix) DO NOTHING",
+                    Map.of("prefix", prefix, "accounts", ACCOUNTS,
+                            "firstKey", firstKey, "lastKey", firstKey + KEYS_PER_PREFIX - 1));
+            start = advance(params);
+        }
+        return start.isEmpty() ? 0 : start.get(0);
+    }
+
+    private List<Long> advance(Map<String, Object> params) {
+        return jdbcTemplate.queryForList("UPDATE card_number_ranges SET next_account = next_account + :size " +
+                "WHERE prefix = :prefix RETURNING next_account - :size", params, Long.class);
+    }
+
+}
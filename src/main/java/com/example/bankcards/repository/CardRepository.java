@@ -1,33 +1,105 @@
 package com.example.bankcards.repository;
 
-import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.CardKey;
+import com.example.bankcards.dto.projection.CardView;
 import com.example.bankcards.entity.Card;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-import java.time.LocalDateTime;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card> {
+public interface CardRepository extends JpaRepository<Card, Long> {
 
-    @EntityGraph(attributePaths = {"user"})
-    Page<Card> findAll(Specification<Card> spec, Pageable pageable);
+    String CHECKPOINT_SQL = "INSERT INTO card_balance_checkpoints (card_id, seq, balance) " +
+            "SELECT id, ledger_seq, balance FROM card WHERE ledger_seq % 100 = 0";
 
-    @EntityGraph(attributePaths = {"user"})
-    Optional<Card> findByCardNum(String cardNum);
+    String EXPORT_FETCH_SIZE = "1000";
 
-    @EntityGraph(attributePaths = {"user"})
-    List<Card> findAllByUserId(Long userId);
+    String CARD_VIEW = "select new com.example.bankcards.dto.projection.CardView(" +
+            "c.id, c.cardNum, c.owner, c.expirationDate, c.status, c.balance) from Card c ";
 
-    @EntityGraph(attributePaths = {"user"})
-    List<Card> findByExpirationDateBeforeAndStatusNot(LocalDateTime date, CardStatus status);
+    // A transfer only moves money while the counterparty is still an active card, so the first of its two updates
+    // also confirms the other card and a missed update has written nothing.
+    String COUNTERPARTY_ACTIVE = " AND (CAST(:counterpartyId AS BIGINT) IS NULL OR EXISTS (" +
+            "    SELECT 1 FROM cards counterparty" +
+            "    WHERE counterparty.id = CAST(:counterpartyId AS BIGINT) AND counterparty.status = 'ACTIVE'))";
 
-    @EntityGraph(attributePaths = {"user"})
-    Optional<Card> findByCardNumAndUser_Id(String cardNum, Long id);
+    String DEBIT_SQL = "WITH card AS (" +
+            "    UPDATE cards SET balance = balance - :amount, ledger_seq = ledger_seq + 1" +
+            "    WHERE id = :id AND status = 'ACTIVE' AND balance >= :amount" + COUNTERPARTY_ACTIVE +
+            "    RETURNING id, ledger_seq, balance" +
+            "), checkpoint AS (" + CHECKPOINT_SQL + ") " +
+            "INSERT INTO card_transactions (card_id, seq, type, amount, counterparty_card_id) " +
+            "SELECT id, ledger_seq, 'TRANSFER_OUT', -:amount, CAST(:counterpartyId AS BIGINT) FROM card";
+
+    String CREDIT_SQL = "WITH card AS (" +
+            "    UPDATE cards SET balance = balance + :amount, ledger_seq = ledger_seq + 1" +
+            "    WHERE id = :id AND status = 'ACTIVE'" + COUNTERPARTY_ACTIVE +
+            "    RETURNING id, ledger_seq, balance" +
+            "), checkpoint AS (" + CHECKPOINT_SQL + ") " +
+            "INSERT INTO card_transactions (card_id, seq, type, amount, counterparty_card_id) " +
+            "SELECT id, ledger_seq, :type, :amount, CAST(:counterpartyId AS BIGINT) FROM card";
+
+    @Query(CARD_VIEW + "where c.id = :id")
+    Optional<CardView> findViewById(Long id);
+
+    @Query(value = CARD_VIEW + "where c.user.id = :userId",
+            countQuery = "select count(c) from Card c where c.user.id = :userId")
+    Page<CardView> findViewsByUserId(Long userId, Pageable pageable);
+
+    @Query(value = CARD_VIEW, countQuery = "select count(c) from Card c")
+    Page<CardView> findAllViews(Pageable pageable);
+
+    @Query(CARD_VIEW)
+    Slice<CardView> findViewSlice(Pageable pageable);
+
+    @Query(CARD_VIEW + "where c.id > :id order by c.id")
+    List<CardView> findViewsAfter(Long id, Limit limit);
+
+    @Query("select c.balance from Card c where c.cardKey = :cardKey and c.user.id = :userId")
+    Optional<BigDecimal> findBalanceByCardKeyAndUserId(Long cardKey, Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Card c order by c.id")
+    Stream<Card> streamAllOrderById();
+
+    boolean existsByCardKey(Long cardKey);
+
+    @Query("select new com.example.bankcards.dto.projection.CardKey(c.id, c.cardNum, c.user.id, c.status) " +
+            "from Card c where c.cardKey in :cardKeys")
+    List<CardKey> findKeysByCardKeyIn(Collection<Long> cardKeys);
+
+    @Modifying
+    @Query(value = DEBIT_SQL, nativeQuery = true)
+    int debit(Long id, BigDecimal amount, Long counterpartyId);
+
+    @Modifying
+    @Query(value = CREDIT_SQL, nativeQuery = true)
+    int credit(Long id, BigDecimal amount, String type, Long counterpartyId);
+
+    @Query(value = "WITH checkpoint AS (" +
+            "    SELECT seq, balance FROM card_balance_checkpoints" +
+            "    WHERE card_id = :id AND seq <= :seq ORDER BY seq DESC LIMIT 1" +
+            ") " +
+            "SELECT COALESCE((SELECT balance FROM checkpoint), 0) + COALESCE(SUM(t.amount), 0) " +
+            "FROM card_transactions t " +
+            "WHERE t.card_id = :id AND t.seq <= :seq AND t.seq > COALESCE((SELECT seq FROM checkpoint), 0)",
+            nativeQuery = true)
+    BigDecimal findBalanceAtSeq(Long id, long seq);
 
 }
@@ -0,0 +1,60 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.projection.IdempotentResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Optional<IdempotentResponse> find(Long userId, String idempotencyKey, LocalDateTime createdAfter) {
+        return jdbcTemplate.query("SELECT request_hash, response FROM idempotency_keys " +
+                        "WHERE user_id = :userId AND idempotency_key = :idempotencyKey AND created_at >= :createdAfter",
+                Map.of("userId", userId, "idempotencyKey", idempotencyKey, "createdAfter", Timestamp.valueOf(createdAfter)),
+                (rs, rowNum) -> new IdempotentResponse(rs.getLong("request_hash"), rs.getString("response")))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Inserts the key without a response, or takes it over if it was created before {@code expiredBefore}.
+     *
+     * @return {@code 0} if the key is already stored; waits for a concurrent transaction claiming the same key
+     */
+    public int claim(Long userId, String idempotencyKey, long requestHash, LocalDateTime createdAt,
+                     LocalDateTime expiredBefore) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("idempotencyKey", idempotencyKey)
+                .addValue("requestHash", requestHash)
+                .addValue("createdAt", Timestamp.valueOf(createdAt))
+                .addValue("expiredBefore", Timestamp.valueOf(expiredBefore));
+        return jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, created_at) " +
+                "VALUES (:userId, :idempotencyKey, :requestHash, :createdAt) " +
+                "ON CONFLICT (user_id, idempotency_key) DO UPDATE " +
+                "SET request_hash = EXCLUDED.request_hash, response = NULL, created_at = EXCLUDED.created_at " +
+                "WHERE idempotency_keys.created_at < :expiredBefore", params);
+    }
+
+    public int complete(Long userId, String idempotencyKey, String response) {
+        return jdbcTemplate.update("UPDATE idempotency_keys SET response = :response " +
+                        "WHERE user_id = :userId AND idempotency_key = :idempotencyKey",
+                Map.of("userId", userId, "idempotencyKey", idempotencyKey, "response", response));
+    }
+
+    public int deleteCreatedBefore(LocalDateTime createdAt) {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < :createdAt",
+                Map.of("createdAt", Timestamp.valueOf(createdAt)));
+    }
+
+}
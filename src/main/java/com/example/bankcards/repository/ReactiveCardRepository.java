@@ -0,0 +1,83 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.CardView;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking reads of the {@code cards} table over R2DBC, using the database and credentials of the JDBC
+ * data source. The connection pool is private to this class and not exposed as a bean: a
+ * {@code ConnectionFactory} bean would bring in a reactive transaction manager next to the JPA one.
+ */
+@Repository
+@ConditionalOnProperty(name = "reactive-reads.enabled", havingValue = "true")
+public class ReactiveCardRepository implements DisposableBean {
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveCardRepository(@Value("${spring.datasource.url}") String jdbcUrl,
+                                  @Value("${spring.datasource.username}") String username,
+                                  @Value("${spring.datasource.password}") String password,
+                                  @Value("${reactive-reads.pool.max-size}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse("r2dbc:" + jdbcUrl.substring("jdbc:".length()))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(maxSize)
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    public Flux<CardView> findViewsByUserId(Long userId, long offset, int limit) {
+        return databaseClient.sql("SELECT id, card_num, owner, expiration_date, status, balance FROM cards " +
+                        "WHERE user_id = :userId ORDER BY id LIMIT :limit OFFSET :offset")
+                .bind("userId", userId)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(row -> new CardView(
+                        row.get("id", Long.class),
+                        row.get("card_num", String.class),
+                        row.get("owner", String.class),
+                        row.get("expiration_date", LocalDateTime.class),
+                        CardStatus.valueOf(row.get("status", String.class)),
+                        row.get("balance", BigDecimal.class)))
+                .all();
+    }
+
+    public Mono<Long> countByUserId(Long userId) {
+        return databaseClient.sql("SELECT count(*) FROM cards WHERE user_id = :userId")
+                .bind("userId", userId)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<BigDecimal> findBalanceByCardKeyAndUserId(Long cardKey, Long userId) {
+        return databaseClient.sql("SELECT balance FROM cards WHERE card_key = :cardKey AND user_id = :userId")
+                .bind("cardKey", cardKey)
+                .bind("userId", userId)
+                .map(row -> row.get("balance", BigDecimal.class))
+                .one();
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+
+}
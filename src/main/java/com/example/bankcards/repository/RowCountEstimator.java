@@ -0,0 +1,52 @@
+package com.example.bankcards.repository;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Row counts of the large listing tables taken from the planner statistics in {@code pg_class.reltuples}, which
+ * autovacuum and ANALYZE keep current. An estimate older than {@code pagination.estimate-refresh} is reloaded in
+ * the background on its next read, so it does not depend on scheduling being enabled; a table is only counted
+ * exactly while it has never been analyzed, which happens to small fresh tables only.
+ */
+@Repository
+public class RowCountEstimator {
+
+    public static final String CARDS = "cards";
+    public static final String USERS = "users";
+    private static final Set<String> TABLES = Set.of(CARDS, USERS);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadingCache<String, Long> estimates;
+
+    public RowCountEstimator(JdbcTemplate jdbcTemplate,
+                             @Value("${pagination.estimate-refresh}") long refreshMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.estimates = Caffeine.newBuilder()
+                .refreshAfterWrite(Duration.ofMillis(refreshMillis))
+                .build(this::load);
+    }
+
+    public long estimate(String table) {
+        if (!TABLES.contains(table)) {
+            throw new IllegalArgumentException("No row count estimate for table <<" + table + ">>");
+        }
+        return estimates.get(table);
+    }
+
+    private long load(String table) {
+        Long estimate = jdbcTemplate.queryForObject(
+                "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+        if (estimate == null || estimate < 0) {
+            estimate = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+        }
+        return estimate == null ? 0L : estimate;
+    }
+
+}
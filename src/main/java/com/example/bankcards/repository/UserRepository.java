@@ -1,9 +1,16 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.projection.UserCredentials;
 import com.example.bankcards.entity.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -11,4 +18,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @EntityGraph(attributePaths = {"roles", "cards"})
     Optional<User> findByUsername(String username);
 
+    /**
+     * One row per role of the user, or a single row with a {@code null} role if the user has none.
+     */
+    @Query("select new com.example.bankcards.dto.projection.UserCredentials(u.id, u.password, r.name) " +
+            "from User u left join u.roles r where u.username = :username")
+    List<UserCredentials> findCredentialsByUsername(String username);
+
+    boolean existsByUsername(String username);
+
+    Slice<User> findAllBy(Pageable pageable);
+
+    @Query("select u.id from User u where u.id > :id order by u.id")
+    List<Long> findIdsByIdGreaterThan(Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"roles"})
+    List<User> findAllByIdInOrderByIdAsc(Collection<Long> ids);
+
 }
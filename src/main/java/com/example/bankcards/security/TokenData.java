@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 
+import java.util.Date;
 import java.util.List;
 
 @Data
@@ -18,5 +19,6 @@ public class TokenData {
     private String username;
     private String token;
     private List<? extends GrantedAuthority> authorities;
+    private Date expiration;
 
 }
@@ -2,6 +2,7 @@ package com.example.bankcards.security.filter;
 
 import com.example.bankcards.security.service.JwtService;
 import com.example.bankcards.security.TokenAuthentication;
+import com.example.bankcards.security.TokenData;
 import com.example.bankcards.util.TokenUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -31,11 +32,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         String token = TokenUtil.parseToken(request);
 
         if (token != null) {
-            if (jwtService.isTokenExpired(token)) {
+            TokenData tokenData = jwtService.verifyToken(token);
+            if (tokenData == null) {
                 sendErrorResponse(response);
                 return;
             }
-            TokenAuthentication authentication = new TokenAuthentication(jwtService.parseToken(token));
+            TokenAuthentication authentication = new TokenAuthentication(tokenData);
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         filterChain.doFilter(request, response);
@@ -5,65 +5,57 @@ import com.example.bankcards.security.TokenData;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import lombok.SneakyThrows;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final TokenCache tokenCache;
+
     @Value("${jwt.secret}")
     private String secretKey;
 
     @Value("${jwt.life-time}")
     private Long lifeTime;
 
-    public Long getUserIdFromToken(String token) {
-        return getClaimFromToken(token, (Function<Claims, Long>) claims -> claims.get("userId", Long.class));
-    }
-
-    public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, (Function<Claims, String>) claims -> claims.get("username", String.class));
-    }
-
-    public List<String> getRolesFromToken(String token) {
-        return getClaimFromToken(token, (Function<Claims, List<String>>) claims -> claims.get("roles", List.class));
-    }
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private final ConcurrentMap<String, SimpleGrantedAuthority> authorities = new ConcurrentHashMap<>();
 
-    public TokenData parseToken(String token) {
-        return TokenData.builder()
-                .token(token)
-                .username(getUsernameFromToken(token))
-                .authorities(getRolesFromToken(token).stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList()))
-                .id(getUserIdFromToken(token))
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
                 .build();
     }
 
-    public boolean isTokenExpired(String token) {
-        try {
-            return getAllClaimsFromToken(token).getExpiration().before(new Date());
-        } catch (ExpiredJwtException e) {
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            log.error("Error while parsing token for expiration check: {}", e.getMessage());
-            return true;
-        }
+    public TokenData verifyToken(String token) {
+        return tokenCache.get(token, this::parseToken);
     }
 
     public String generateJwtToken(CustomUserDetails userDetails) {
@@ -79,24 +71,39 @@ public class JwtService {
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + lifeTime))
-                .signWith(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8)))
+                .signWith(signingKey)
                 .compact();
     }
 
-    @SneakyThrows
-    private Claims getAllClaimsFromToken(String token) {
+    private TokenData parseToken(String token) {
+        Claims claims;
         try {
-            return Jwts.parser()
-                    .verifyWith(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8)))
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Error! Wrong argument passed!");
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+        } catch (ExpiredJwtException e) {
+            return null;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.error("Error while parsing token: {}", e.getMessage());
+            return null;
         }
+
+        return TokenData.builder()
+                .token(token)
+                .username(claims.get("username", String.class))
+                .authorities(toAuthorities(claims.get("roles", Collection.class)))
+                .id(claims.get("userId", Long.class))
+                .expiration(claims.getExpiration())
+                .build();
     }
 
-    private <T> T getClaimFromToken(String token, Function<Claims, T> claimResolver) {
-        return claimResolver.apply(getAllClaimsFromToken(token));
+    private List<SimpleGrantedAuthority> toAuthorities(Collection<?> roles) {
+        if (roles == null || roles.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<SimpleGrantedAuthority> result = new ArrayList<>(roles.size());
+        for (Object role : roles) {
+            result.add(authorities.computeIfAbsent(role.toString(), SimpleGrantedAuthority::new));
+        }
+        return Collections.unmodifiableList(result);
     }
+
 }
@@ -0,0 +1,63 @@
+package com.example.bankcards.security.service;
+
+import com.example.bankcards.security.TokenData;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+
+@Component
+public class TokenCache {
+
+    // Rough retained size of a cache entry beyond the token and username characters.
+    private static final int ENTRY_OVERHEAD = 320;
+
+    private final Cache<String, TokenData> cache;
+
+    public TokenCache(@Value("${jwt.cache.max-weight}") long maxWeight, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, TokenData data) -> ENTRY_OVERHEAD + data.getToken().length()
+                        + (data.getUsername() == null ? 0 : data.getUsername().length()))
+                .expireAfter(Expiry.creating((String key, TokenData data) ->
+                        Duration.between(Instant.now(), data.getExpiration().toInstant())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.tokens");
+    }
+
+    public TokenData get(String token, Function<String, TokenData> verifier) {
+        String key = digest(token);
+        TokenData tokenData = cache.getIfPresent(key);
+        if (tokenData != null) {
+            return tokenData;
+        }
+
+        tokenData = verifier.apply(token);
+        if (tokenData != null && tokenData.getExpiration() != null) {
+            cache.put(key, tokenData);
+        }
+        return tokenData;
+    }
+
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
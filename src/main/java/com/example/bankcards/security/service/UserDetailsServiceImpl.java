@@ -1,15 +1,19 @@
 package com.example.bankcards.security.service;
 
-import com.example.bankcards.entity.Role;
+import com.example.bankcards.dto.projection.UserCredentials;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.CustomUserDetails;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,15 +24,17 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
-                .map(user -> new CustomUserDetails(
-                        user.getId(),
-                        user.getUsername(),
-                        user.getPassword(),
-                        user.getRoles().stream()
-                                .map(Role::getName)
-                                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                                .collect(Collectors.toSet())
-                )).orElseThrow(() -> new UsernameNotFoundException("The user with username <<" + username + ">> not found!"));
+        List<UserCredentials> rows = userRepository.findCredentialsByUsername(username);
+        if (rows.isEmpty()) {
+            throw new UsernameNotFoundException("The user with username <<" + username + ">> not found!");
+        }
+
+        UserCredentials credentials = rows.getFirst();
+        Set<GrantedAuthority> authorities = rows.stream()
+                .map(UserCredentials::role)
+                .filter(Objects::nonNull)
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .collect(Collectors.toSet());
+        return new CustomUserDetails(credentials.id(), username, credentials.password(), authorities);
     }
 }
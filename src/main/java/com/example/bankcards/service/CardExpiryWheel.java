@@ -0,0 +1,175 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.CardExpiration;
+import com.example.bankcards.dto.projection.ExpiredCard;
+import com.example.bankcards.repository.CardBatchRepository;
+import com.example.bankcards.repository.CardKeyIndex;
+import com.example.bankcards.util.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expires cards close to their expiration date. Cards due within {@code card-expiry.horizon} are loaded from the
+ * database window by window and kept in a {@link TimingWheel}; every {@code card-expiry.tick} the due ones are
+ * flipped to EXPIRED, and those a transaction holds at that moment, or whose chunk fails, are retried on the next
+ * tick. Cards created with a date inside the loaded window are added by {@link #schedule}.
+ * Only the node holding the wheel through the {@link JobCoordinator} loads and ticks it, the others stay empty.
+ * Anything missed here, such as cards created on another node, is picked up by the {@link CardStatusScheduler}
+ * sweep.
+ */
+@Slf4j
+@Service
+public class CardExpiryWheel {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int LEVELS = 4;
+    private static final String JOB_NAME = "cards.expiry.wheel";
+
+    private final CardBatchRepository cardBatchRepository;
+    private final CardKeyIndex cardKeyIndex;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter expiredCounter;
+    private final Duration horizon;
+    private final int chunkSize;
+    private final long tickMillis;
+    private TimingWheel<Long> wheel;
+    private LocalDateTime loadedUpTo;
+
+    public CardExpiryWheel(CardBatchRepository cardBatchRepository,
+                           CardKeyIndex cardKeyIndex,
+                           JobCoordinator jobCoordinator,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${card-expiry.tick}") long tickMillis,
+                           @Value("${card-expiry.horizon}") Duration horizon,
+                           @Value("${scheduling.chunkSize}") int chunkSize) {
+        this.cardBatchRepository = cardBatchRepository;
+        this.cardKeyIndex = cardKeyIndex;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.horizon = horizon;
+        this.chunkSize = chunkSize;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, LEVELS, System.currentTimeMillis());
+        if (horizon.toMillis() > wheel.horizonMillis()) {
+            throw new IllegalArgumentException("card-expiry.horizon exceeds the wheel range of "
+                    + Duration.ofMillis(wheel.horizonMillis()));
+        }
+        this.expiredCounter = Counter.builder("cards.expiry.wheel.rows")
+                .description("Cards moved to EXPIRED by the timing wheel")
+                .register(meterRegistry);
+        Gauge.builder("cards.expiry.wheel.size", this, CardExpiryWheel::size)
+                .description("Cards waiting in the timing wheel")
+                .register(meterRegistry);
+    }
+
+    public synchronized void schedule(Long cardId, LocalDateTime expirationDate) {
+        // Beyond the loaded window the card is picked up by the next load.
+        if (loadedUpTo != null && expirationDate.isBefore(loadedUpTo)) {
+            wheel.add(toMillis(expirationDate), cardId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${card-expiry.load-interval}")
+    public void load() {
+        if (!jobCoordinator.holdExclusive(JOB_NAME)) {
+            synchronized (this) {
+                // Another node holds the wheel, cards this node had loaded are now its business.
+                if (loadedUpTo != null) {
+                    wheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, LEVELS, System.currentTimeMillis());
+                    loadedUpTo = null;
+                }
+            }
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from;
+        synchronized (this) {
+            // The first window reaches back one horizon to cover cards that came due while no node was running.
+            from = loadedUpTo == null ? now.minus(horizon) : loadedUpTo;
+        }
+        LocalDateTime to = now.plus(horizon);
+        if (!from.isBefore(to)) {
+            return;
+        }
+
+        List<CardExpiration> cards = cardBatchRepository.findExpiringBetween(from, to);
+        synchronized (this) {
+            for (CardExpiration card : cards) {
+                wheel.add(toMillis(card.expirationDate()), card.id());
+            }
+            loadedUpTo = to;
+        }
+        log.debug("Loaded {} cards expiring before {} into the timing wheel.", cards.size(), to);
+    }
+
+    @Scheduled(fixedDelayString = "${card-expiry.tick}")
+    public void tick() {
+        List<Long> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> retry = new ArrayList<>();
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            List<Long> chunk = due.subList(from, Math.min(from + chunkSize, due.size()));
+            try {
+                List<ExpiredCard> expired = transactionTemplate.execute(tx -> cardBatchRepository.expireDue(chunk, now));
+                if (expired == null || expired.size() < chunk.size()) {
+                    // Cards held by a transfer were skipped; the rest of the misses are gone or no longer due.
+                    retry.addAll(cardBatchRepository.findDue(chunk, now));
+                }
+                if (expired == null) {
+                    continue;
+                }
+                for (ExpiredCard card : expired) {
+                    cardKeyIndex.put(card.cardKey(), card.id(), card.userId(), CardStatus.EXPIRED);
+                }
+                expiredCounter.increment(expired.size());
+            } catch (DataAccessException e) {
+                log.warn("Could not expire {} due cards, retrying on the next tick: {}", chunk.size(), e.getMessage());
+                retry.addAll(chunk);
+            }
+        }
+        retry(retry);
+    }
+
+    private synchronized void retry(List<Long> ids) {
+        // Unless another node took the wheel over meanwhile, a deadline in the past fires them on the next tick.
+        if (loadedUpTo != null) {
+            for (Long id : ids) {
+                wheel.add(0L, id);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardNumberRangeRepository;
+import com.example.bankcards.util.LuhnUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out card numbers made of {@code card-number.prefix}, a 9-digit account number and a Luhn check digit.
+ * Account numbers are leased from {@code card_number_ranges} in ranges of {@code card-number.range-size} in a
+ * transaction of their own, so nodes never share a range and numbers need no uniqueness check. Numbers left in
+ * the range of a node that stops are never issued. The prefix is reserved: numbers passed in by callers must not
+ * start with it.
+ * <p>
+ * A lease takes a pool connection while holding the lock, so callers allocate before opening their own transaction;
+ * otherwise threads queued on the lock could hold every connection and stall the lease until the pool times out.
+ */
+@Slf4j
+@Service
+public class CardNumberAllocator {
+
+    private static final int PREFIX_LENGTH = 6;
+    private static final long ACCOUNTS = 1_000_000_000L;
+
+    private final CardNumberRangeRepository cardNumberRangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String prefix;
+    private final int rangeSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long end;
+
+    public CardNumberAllocator(CardNumberRangeRepository cardNumberRangeRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${card-number.prefix}") String prefix,
+                               @Value("${card-number.range-size}") int rangeSize) {
+        if (!prefix.matches("\\d{" + PREFIX_LENGTH + "}")) {
+            throw new IllegalArgumentException("card-number.prefix must have " + PREFIX_LENGTH + " digits");
+        }
+        this.cardNumberRangeRepository = cardNumberRangeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.prefix = prefix;
+        this.rangeSize = rangeSize;
+    }
+
+    public String allocate() {
+        return allocate(1).get(0);
+    }
+
+    public List<String> allocate(int count) {
+        List<String> cardNums = new ArrayList<>(count);
+        lock.lock();
+        try {
+            while (cardNums.size() < count) {
+                if (next == end) {
+                    lease(Math.max(rangeSize, count - cardNums.size()));
+                }
+                cardNums.add(toCardNum(next++));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return cardNums;
+    }
+
+    public boolean isReserved(String cardNum) {
+        return cardNum.startsWith(prefix);
+    }
+
+    private void lease(int size) {
+        Long start = transactionTemplate.execute(tx -> cardNumberRangeRepository.lease(prefix, size));
+        if (start == null || start + size > ACCOUNTS) {
+            throw new IllegalStateException("Card numbers with prefix " + prefix + " are exhausted");
+        }
+        next = start;
+        end = start + size;
+        log.debug("Leased card numbers {} to {} with prefix {}.", next, end - 1, prefix);
+    }
+
+    private String toCardNum(long account) {
+        StringBuilder cardNum = new StringBuilder(16).append(prefix);
+        String digits = Long.toString(account);
+        cardNum.repeat('0', 9 - digits.length()).append(digits);
+        return cardNum.append(LuhnUtil.checkDigit(cardNum)).toString();
+    }
+
+}
@@ -2,15 +2,25 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.ExportFormat;
+import com.example.bankcards.dto.request.BulkIssueCardsRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.request.TransferMoneyRequest;
+import com.example.bankcards.dto.response.BatchTransferResult;
+import com.example.bankcards.dto.response.BulkIssueResult;
+import com.example.bankcards.dto.response.CursorPage;
 import org.springframework.data.domain.Page;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface CardService {
 
     CardDto createCard(CreateCardRequest request);
 
+    BulkIssueResult issueCards(BulkIssueCardsRequest request);
+
     void deleteCard(Long cardId);
 
     CardDto changeStatus(Long cardId, CardStatus cardStatus);
@@ -21,11 +31,21 @@ public interface CardService {
 
     Page<CardDto> findAll(int page, int size);
 
+    Page<CardDto> findAllWithApproximateTotal(int page, int size);
+
+    CursorPage<CardDto> findAllAfter(String cursor, int size);
+
+    void exportAll(ExportFormat format, OutputStream outputStream);
+
     void transfer(Long userId,String firstCardNum, String secondCardNum, BigDecimal amount);
 
+    List<BatchTransferResult> transferBatch(Long userId, List<TransferMoneyRequest> transfers);
+
     void depositMoney(Long userId, String cardNum, BigDecimal amount);
 
     void blockCard(Long userId, Long cardId);
 
     BigDecimal getBalance(Long userId, String cardNum);
+
+    BigDecimal getBalanceAt(Long cardId, long seq);
 }
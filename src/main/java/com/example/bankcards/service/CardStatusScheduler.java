@@ -1,37 +1,127 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.CardStatus;
-import com.example.bankcards.entity.Card;
-import com.example.bankcards.repository.CardRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.bankcards.dto.projection.ExpiredCard;
+import com.example.bankcards.repository.CardBatchRepository;
+import com.example.bankcards.repository.CardKeyIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class CardStatusScheduler {
 
-    private final CardRepository cardRepository;
+    private static final String JOB_NAME = "cards.expiry";
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final List<CardStatus> EXPIRABLE = List.of(CardStatus.ACTIVE, CardStatus.BLOCKED);
+
+    private final CardBatchRepository cardBatchRepository;
+    private final CardKeyIndex cardKeyIndex;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer chunkTimer;
+    private final Timer runTimer;
+    private final Counter expiredCounter;
+    private final int chunkSize;
+    private final int partitions;
+    private volatile double lastRunRowsPerSecond;
+
+    public CardStatusScheduler(CardBatchRepository cardBatchRepository,
+                               CardKeyIndex cardKeyIndex,
+                               JobCoordinator jobCoordinator,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${scheduling.chunkSize}") int chunkSize,
+                               @Value("${scheduling.partitions}") int partitions) {
+        if (partitions < 1 || partitions > CardBatchRepository.EXPIRY_BUCKETS) {
+            throw new IllegalArgumentException("scheduling.partitions must be from 1 to " + CardBatchRepository.EXPIRY_BUCKETS);
+        }
+        this.cardBatchRepository = cardBatchRepository;
+        this.cardKeyIndex = cardKeyIndex;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.partitions = partitions;
+        this.chunkTimer = Timer.builder("cards.expiry.chunk")
+                .description("Latency of one expiry chunk transaction")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("cards.expiry.run")
+                .description("Duration of a full expiry run")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("cards.expiry.rows")
+                .description("Cards moved to EXPIRED")
+                .register(meterRegistry);
+        Gauge.builder("cards.expiry.rows.per.second", this, scheduler -> scheduler.lastRunRowsPerSecond)
+                .description("Throughput of the last expiry run")
+                .register(meterRegistry);
+    }
 
     @Scheduled(fixedDelayString = "${scheduling.fixedDelay}")
-    @Transactional
     public void updateExpiredCards() {
         LocalDateTime now = LocalDateTime.now();
+        long started = System.nanoTime();
 
-        List<Card> expiredCards = cardRepository.findByExpirationDateBeforeAndStatusNot(now, CardStatus.EXPIRED);
+        LongAdder total = new LongAdder();
+        int claimed = jobCoordinator.runPartitions(JOB_NAME, partitions, partition -> {
+            // A partition owns whole expiry buckets, so each of its scans stays inside its own part of the index.
+            for (int bucket = partition; bucket < CardBatchRepository.EXPIRY_BUCKETS; bucket += partitions) {
+                for (CardStatus status : EXPIRABLE) {
+                    total.add(expire(status, now, bucket));
+                }
+            }
+        });
 
-        for (Card card : expiredCards) {
-            card.setStatus(CardStatus.EXPIRED);
+        long elapsed = System.nanoTime() - started;
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        lastRunRowsPerSecond = total.sum() * 1e9 / Math.max(elapsed, 1);
+        if (total.sum() > 0) {
+            log.info("Updated {} cards to EXPIRED in {} of {} partitions in {} ms ({} rows/s).", total.sum(),
+                    claimed, partitions, TimeUnit.NANOSECONDS.toMillis(elapsed), Math.round(lastRunRowsPerSecond));
         }
+    }
+
+    private long expire(CardStatus status, LocalDateTime now, int bucket) {
+        LocalDateTime lastExpirationDate = KEYSET_START;
+        long lastId = 0;
+        long total = 0;
+
+        while (true) {
+            LocalDateTime fromDate = lastExpirationDate;
+            long fromId = lastId;
+            List<ExpiredCard> chunk = chunkTimer.record(() -> transactionTemplate.execute(tx ->
+                    cardBatchRepository.expireChunk(status, now, bucket, fromDate, fromId, chunkSize)));
+            if (chunk == null || chunk.isEmpty()) {
+                return total;
+            }
+
+            for (ExpiredCard card : chunk) {
+                cardKeyIndex.put(card.cardKey(), card.id(), card.userId(), CardStatus.EXPIRED);
+            }
+            total += chunk.size();
+            expiredCounter.increment(chunk.size());
 
-        if (!expiredCards.isEmpty()) {
-            log.info("Updated {} cards to EXPIRED.", expiredCards.size());
+            ExpiredCard last = chunk.stream()
+                    .max(Comparator.comparing(ExpiredCard::expirationDate).thenComparing(ExpiredCard::id))
+                    .orElseThrow();
+            lastExpirationDate = last.expirationDate();
+            lastId = last.id();
+            if (chunk.size() < chunkSize) {
+                return total;
+            }
         }
     }
 
@@ -0,0 +1,130 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.projection.IdempotentResponse;
+import com.example.bankcards.exception.IdempotencyKeyReusedException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} of a user. The key is claimed before the work of the
+ * request and gets the response after it, in the same transaction, so either both commit or neither does; a
+ * concurrent request with the same key waits on the claim and then replays the response, or runs if the first
+ * one rolled back. Responses of committed keys are kept in a bounded in-memory cache, so retries are answered
+ * without touching the database. Keys expire after {@code idempotency.ttl}; new keys trigger the deletion of
+ * expired ones at most every {@code idempotency.cleanup-interval}, whether scheduling is enabled or not.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, IdempotentResponse> responses;
+    private final Duration ttl;
+    private final long cleanupIntervalMillis;
+    private final AtomicLong nextCleanup = new AtomicLong();
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.ttl}") Duration ttl,
+                              @Value("${idempotency.cache-size}") long cacheSize,
+                              @Value("${idempotency.cleanup-interval}") long cleanupIntervalMillis) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.cleanupIntervalMillis = cleanupIntervalMillis;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency.responses");
+    }
+
+    /**
+     * @param request everything that identifies the request, a key reused for a different request is rejected
+     * @param action  the work of the request, returning the response body
+     */
+    public Result execute(Long userId, String idempotencyKey, String request, Supplier<String> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("The Idempotency-Key header must have from 1 to " + MAX_KEY_LENGTH + " characters!");
+        }
+        long requestHash = hash(request);
+        String cacheKey = userId + ":" + idempotencyKey;
+
+        IdempotentResponse stored = responses.getIfPresent(cacheKey);
+        if (stored == null) {
+            LocalDateTime now = LocalDateTime.now();
+            Result result = transactionTemplate.execute(tx -> {
+                // A stored key makes the claim return 0, so the stored response is only read for retries.
+                if (idempotencyKeyRepository.claim(userId, idempotencyKey, requestHash, now, now.minus(ttl)) == 0) {
+                    return null;
+                }
+                String response = action.get();
+                idempotencyKeyRepository.complete(userId, idempotencyKey, response);
+                return new Result(response, false);
+            });
+            if (result != null) {
+                responses.put(cacheKey, new IdempotentResponse(requestHash, result.response()));
+                deleteExpiredIfDue();
+                return result;
+            }
+            stored = idempotencyKeyRepository.find(userId, idempotencyKey, now.minus(ttl)).orElseThrow();
+            responses.put(cacheKey, stored);
+        }
+
+        if (stored.requestHash() != requestHash) {
+            throw new IdempotencyKeyReusedException("The Idempotency-Key has already been used for another request!");
+        }
+        return new Result(stored.response(), true);
+    }
+
+    private void deleteExpiredIfDue() {
+        long now = System.currentTimeMillis();
+        long due = nextCleanup.get();
+        if (now < due || !nextCleanup.compareAndSet(due, now + cleanupIntervalMillis)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+            log.debug("Deleted {} expired idempotency keys.", deleted);
+        }).exceptionally(e -> {
+            log.warn("Could not delete expired idempotency keys: {}", e.getMessage());
+            return null;
+        });
+    }
+
+    private static long hash(String request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(hash).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record Result(String response, boolean replayed) {
+    }
+
+}
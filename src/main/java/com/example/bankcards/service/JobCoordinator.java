@@ -0,0 +1,138 @@
+package com.example.bankcards.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * Splits a scheduled job into partitions that the nodes of a cluster claim through Postgres session advisory
+ * locks. The locks are held on a dedicated connection for the duration of the run, so a node that dies
+ * releases its partitions together with its connection. Nodes start at a random partition and skip the ones
+ * that are already taken, so adding nodes spreads the work instead of making them wait on the same rows.
+ * Jobs that keep state between runs are instead held by a single node through {@link #holdExclusive}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobCoordinator {
+
+    private static final int EXCLUSIVE_PARTITION = -1;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource dataSource;
+    private final Map<String, Connection> heldJobs = new HashMap<>();
+
+    public int runPartitions(String job, int partitions, IntConsumer work) {
+        int claimed = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try {
+                int offset = ThreadLocalRandom.current().nextInt(partitions);
+                for (int i = 0; i < partitions; i++) {
+                    int partition = (offset + i) % partitions;
+                    if (!tryLock(connection, job, partition)) {
+                        continue;
+                    }
+                    try {
+                        work.accept(partition);
+                        claimed++;
+                    } finally {
+                        unlock(connection, job, partition);
+                    }
+                }
+            } finally {
+                // The connection goes back to the pool, it must not keep any lock of this run.
+                try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock_all()")) {
+                    statement.execute();
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not coordinate job " + job, e);
+        }
+        log.debug("Job {}: processed {} of {} partitions on this node.", job, claimed, partitions);
+        return claimed;
+    }
+
+    /**
+     * Claims {@code job} for this node until it stops or loses its database connection: the lock stays on a
+     * dedicated connection between calls. Returns whether this node holds the job.
+     */
+    public synchronized boolean holdExclusive(String job) {
+        try {
+            Connection held = heldJobs.get(job);
+            if (held != null) {
+                if (held.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return true;
+                }
+                // The session and its lock are gone, another node may have claimed the job meanwhile.
+                heldJobs.remove(job);
+                log.warn("Job {}: lost the connection holding it.", job);
+                closeQuietly(held);
+            }
+
+            Connection connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            if (!tryLock(connection, job, EXCLUSIVE_PARTITION)) {
+                connection.close();
+                return false;
+            }
+            heldJobs.put(job, connection);
+            log.info("Job {}: held by this node.", job);
+            return true;
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not coordinate job " + job, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void releaseAll() {
+        for (Connection connection : heldJobs.values()) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock_all()")) {
+                statement.execute();
+            } catch (SQLException e) {
+                log.debug("Could not release held jobs: {}", e.getMessage());
+            }
+            closeQuietly(connection);
+        }
+        heldJobs.clear();
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Could not close a job connection: {}", e.getMessage());
+        }
+    }
+
+    private boolean tryLock(Connection connection, String job, int partition) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?), ?)")) {
+            statement.setString(1, job);
+            statement.setInt(2, partition);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection, String job, int partition) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?), ?)")) {
+            statement.setString(1, job);
+            statement.setInt(2, partition);
+            statement.execute();
+        }
+    }
+
+}
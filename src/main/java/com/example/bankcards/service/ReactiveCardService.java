@@ -0,0 +1,15 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardDto;
+import org.springframework.data.domain.Page;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+public interface ReactiveCardService {
+
+    Mono<Page<CardDto>> findAllByUserId(Long userId, int page, int size);
+
+    Mono<BigDecimal> getBalance(Long userId, String cardNum);
+
+}
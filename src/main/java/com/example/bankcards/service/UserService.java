@@ -1,6 +1,7 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.dto.response.CursorPage;
 import com.example.bankcards.entity.User;
 import org.springframework.data.domain.Page;
 
@@ -18,4 +19,8 @@ public interface UserService {
 
     Page<UserDto> findAll(int page, int size);
 
+    Page<UserDto> findAllWithApproximateTotal(int page, int size);
+
+    CursorPage<UserDto> findAllAfter(String cursor, int size);
+
 }
@@ -0,0 +1,68 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.TransferItem;
+import com.example.bankcards.dto.response.BatchTransferResult;
+import com.example.bankcards.repository.CardBatchRepository;
+import com.example.bankcards.repository.CardRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class CardBatchTransferExecutor {
+
+    private final CardBatchRepository cardBatchRepository;
+
+    @Transactional
+    public List<BatchTransferResult> execute(List<TransferItem> chunk) {
+        Set<Long> cardIds = new HashSet<>();
+        for (TransferItem item : chunk) {
+            cardIds.add(item.from().id());
+            cardIds.add(item.to().id());
+        }
+        Map<Long, CardStatus> statuses = cardBatchRepository.lockInIdOrder(cardIds);
+
+        List<BatchTransferResult> results = new ArrayList<>(chunk.size());
+        List<TransferItem> debits = new ArrayList<>(chunk.size());
+        for (TransferItem item : chunk) {
+            if (statuses.get(item.from().id()) != CardStatus.ACTIVE || statuses.get(item.to().id()) != CardStatus.ACTIVE) {
+                results.add(BatchTransferResult.failed(item.index(), "One of the cards is blocked or expired."));
+            } else {
+                debits.add(item);
+            }
+        }
+
+        // All debits of the chunk run before its credits, so money received in a chunk can't be spent in the same chunk.
+        int[] debited = cardBatchRepository.debit(debits);
+        List<TransferItem> credits = new ArrayList<>(debits.size());
+        for (int i = 0; i < debits.size(); i++) {
+            TransferItem item = debits.get(i);
+            if (debited[i] == 0) {
+                results.add(BatchTransferResult.failed(item.index(), "Insufficient funds on the sender's card."));
+            } else {
+                credits.add(item);
+                results.add(BatchTransferResult.success(item.index()));
+            }
+        }
+
+        // Both cards of every remaining item are locked and active, so the credits can't miss. Should one miss
+        // anyway, the whole chunk rolls back instead of committing a debit without its credit.
+        int[] credited = cardBatchRepository.credit(credits);
+        for (int i = 0; i < credits.size(); i++) {
+            if (credited[i] == 0) {
+                throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(CardRepository.CREDIT_SQL, 1, 0);
+            }
+        }
+        return results;
+    }
+
+}
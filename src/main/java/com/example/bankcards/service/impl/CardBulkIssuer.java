@@ -0,0 +1,145 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.NewCard;
+import com.example.bankcards.dto.request.BulkIssueCardsRequest;
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.response.BulkIssueResult;
+import com.example.bankcards.exception.CardNumberTakenException;
+import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.CardBatchRepository;
+import com.example.bankcards.repository.CardKeyIndex;
+import com.example.bankcards.service.CardNumberAllocator;
+import com.example.bankcards.util.CardKeyUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Issues many cards in one transaction: owners and given card numbers are checked with one query per set,
+ * generated numbers, and numbers for entries that give none, come from the {@link CardNumberAllocator}, ids come
+ * from blocks of the card sequence and the rows are loaded with {@code COPY}. The card key index is updated once
+ * the transaction has committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardBulkIssuer {
+
+    private final CardBatchRepository cardBatchRepository;
+    private final CardKeyIndex cardKeyIndex;
+    private final CardNumberAllocator cardNumberAllocator;
+
+    /**
+     * Allocates the numbers {@link #issue} needs: one per card of each user, or one per given card without a number.
+     * Called before the issuing transaction, since a lease takes a connection of its own.
+     */
+    public List<String> allocateNumbers(BulkIssueCardsRequest request) {
+        boolean given = request.getCards() != null && !request.getCards().isEmpty();
+        int count = given
+                ? (int) request.getCards().stream().filter(card -> card.getCardNum() == null).count()
+                : new HashSet<>(request.getUserIds()).size() * request.getCardsPerUser();
+        return cardNumberAllocator.allocate(count);
+    }
+
+    /**
+     * @param cardNums numbers from {@link #allocateNumbers}
+     */
+    @Transactional
+    public BulkIssueResult issue(BulkIssueCardsRequest request, List<String> cardNums) {
+        boolean given = request.getCards() != null && !request.getCards().isEmpty();
+        Set<Long> userIds = given
+                ? request.getCards().stream().map(CreateCardRequest::getUserId).collect(Collectors.toSet())
+                : new HashSet<>(request.getUserIds());
+        Map<Long, String> ownerNames = cardBatchRepository.findOwnerNames(userIds);
+        if (ownerNames.size() < userIds.size()) {
+            userIds.removeAll(ownerNames.keySet());
+            throw new UserNotFoundException("Users with ids <<" + userIds + ">> not found!");
+        }
+
+        List<String> rejected = new ArrayList<>();
+        Map<String, Long> owners = given
+                ? givenNumbers(request.getCards(), cardNums, rejected)
+                : generatedNumbers(request.getUserIds(), request.getCardsPerUser(), cardNums);
+
+        long[] ids = cardBatchRepository.allocateIds(owners.size());
+        LocalDateTime expirationDate = LocalDateTime.now().plusYears(10L);
+        List<NewCard> cards = new ArrayList<>(owners.size());
+        int i = 0;
+        for (Map.Entry<String, Long> owner : owners.entrySet()) {
+            cards.add(new NewCard(ids[i++], owner.getKey(), ownerNames.get(owner.getValue()),
+                    expirationDate, owner.getValue()));
+        }
+
+        try {
+            cardBatchRepository.copyIn(cards);
+        } catch (DuplicateKeyException e) {
+            throw new CardNumberTakenException("A card number of the batch has just been taken, no cards were issued!");
+        }
+        // Cards expire in ten years, far beyond the window of the expiry wheel, so there is nothing to schedule.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (NewCard card : cards) {
+                    cardKeyIndex.put(CardKeyUtil.toCardKey(card.cardNum()), card.id(), card.userId(), CardStatus.ACTIVE);
+                }
+            }
+        });
+        log.info("Issued {} cards for {} users, rejected {} card numbers.", cards.size(), userIds.size(), rejected.size());
+        return new BulkIssueResult(cards.size(), rejected);
+    }
+
+    private Map<String, Long> givenNumbers(List<CreateCardRequest> requests, List<String> cardNums,
+                                           List<String> rejected) {
+        // Card numbers have exactly 16 digits, so equal numbers and equal card keys are the same thing.
+        Map<String, Long> owners = new LinkedHashMap<>();
+        List<Long> unnumbered = new ArrayList<>();
+        for (CreateCardRequest request : requests) {
+            if (request.getCardNum() == null) {
+                unnumbered.add(request.getUserId());
+                continue;
+            }
+            String cardNum = request.getCardNum().trim();
+            if (!cardNum.matches("\\d{16}") || cardNumberAllocator.isReserved(cardNum)
+                    || owners.putIfAbsent(cardNum, request.getUserId()) != null) {
+                rejected.add(cardNum);
+            }
+        }
+        List<Long> cardKeys = owners.keySet().stream().map(CardKeyUtil::toCardKey).toList();
+        for (Long cardKey : cardBatchRepository.findTakenCardKeys(cardKeys)) {
+            String cardNum = String.format("%016d", cardKey);
+            owners.remove(cardNum);
+            rejected.add(cardNum);
+        }
+        // Like a single card without a number, these get one from the allocator, which given numbers never use.
+        for (int i = 0; i < cardNums.size(); i++) {
+            owners.put(cardNums.get(i), unnumbered.get(i));
+        }
+        return owners;
+    }
+
+    private Map<String, Long> generatedNumbers(List<Long> userIds, int cardsPerUser, List<String> cardNums) {
+        List<Long> users = new ArrayList<>(new LinkedHashSet<>(userIds));
+        // Allocated numbers are unique by construction, so they skip the check against the table.
+        Map<String, Long> owners = new LinkedHashMap<>();
+        for (int i = 0; i < cardNums.size(); i++) {
+            owners.put(cardNums.get(i), users.get(i / cardsPerUser));
+        }
+        return owners;
+    }
+
+}
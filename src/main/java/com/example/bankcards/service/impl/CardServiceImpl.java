@@ -2,8 +2,18 @@ package com.example.bankcards.service.impl;
 
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.CardTransactionType;
+import com.example.bankcards.dto.ExportFormat;
 import com.example.bankcards.dto.mapper.CardMapper;
+import com.example.bankcards.dto.projection.CardKey;
+import com.example.bankcards.dto.projection.CardView;
+import com.example.bankcards.dto.projection.TransferItem;
+import com.example.bankcards.dto.request.BulkIssueCardsRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.request.TransferMoneyRequest;
+import com.example.bankcards.dto.response.BatchTransferResult;
+import com.example.bankcards.dto.response.BulkIssueResult;
+import com.example.bankcards.dto.response.CursorPage;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardNotFoundException;
@@ -11,21 +21,51 @@ import com.example.bankcards.exception.CardNumberTakenException;
 import com.example.bankcards.exception.ImpossibleMoneyTransferException;
 import com.example.bankcards.exception.InvalidCardNumberException;
 import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.CardKeyIndex;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.RowCountEstimator;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardExpiryWheel;
+import com.example.bankcards.service.CardNumberAllocator;
 import com.example.bankcards.service.CardService;
-import com.example.bankcards.util.CardSpecifications;
+import com.example.bankcards.util.CardKeyUtil;
+import com.example.bankcards.util.CursorUtil;
+import com.example.bankcards.util.PageUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -33,29 +73,58 @@ public class CardServiceImpl implements CardService {
 
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
+    private final CardBatchTransferExecutor cardBatchTransferExecutor;
+    private final CardBulkIssuer cardBulkIssuer;
+    private final CardNumberAllocator cardNumberAllocator;
+    private final CardKeyIndex cardKeyIndex;
+    private final CardExpiryWheel cardExpiryWheel;
+    private final RowCountEstimator rowCountEstimator;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${transfer.batch.chunk-size:500}")
+    private int batchChunkSize;
 
     @Override
-    @Transactional
     public CardDto createCard(CreateCardRequest request) {
-        if (!isValidCardNum(request.getCardNum().trim())) {
+        String cardNum = request.getCardNum() == null ? null : request.getCardNum().trim();
+        if (cardNum != null && !isValidCardNum(cardNum)) {
             throw new InvalidCardNumberException("The card number contains characters that are not numbers!");
         }
+        if (cardNum != null && cardNumberAllocator.isReserved(cardNum)) {
+            throw new InvalidCardNumberException("The card number is in the range of numbers issued by the bank!");
+        }
+        // Allocated before the transaction takes a connection, see CardNumberAllocator.
+        String issuedCardNum = cardNum == null ? cardNumberAllocator.allocate() : cardNum;
 
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new UserNotFoundException("User with id <<" + request.getUserId() + ">> not found!"));
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            User user = userRepository.findById(request.getUserId())
+                    .orElseThrow(() -> new UserNotFoundException("User with id <<" + request.getUserId() + ">> not found!"));
 
-        existCardByCardNum(request.getCardNum());
+            if (cardNum != null) {
+                existCardByCardNum(cardNum);
+            }
 
-        Card card = Card.builder()
-                .cardNum(request.getCardNum().trim())
-                .owner(user.getFullName())
-                .expirationDate(LocalDateTime.now().plusYears(10L))
-                .status(CardStatus.ACTIVE)
-                .balance(new BigDecimal("0"))
-                .user(user)
-                .build();
+            Card card = Card.builder()
+                    .cardNum(issuedCardNum)
+                    .owner(user.getFullName())
+                    .expirationDate(LocalDateTime.now().plusYears(10L))
+                    .status(CardStatus.ACTIVE)
+                    .balance(new BigDecimal("0"))
+                    .user(user)
+                    .build();
+
+            Card saved = cardRepository.save(card);
+            cardExpiryWheel.schedule(saved.getId(), saved.getExpirationDate());
+            return CardMapper.toDto(saved);
+        });
+    }
 
-        return CardMapper.toDto(cardRepository.save(card));
+    @Override
+    public BulkIssueResult issueCards(BulkIssueCardsRequest request) {
+        // Allocated before the issuing transaction takes a connection, see CardNumberAllocator.
+        return cardBulkIssuer.issue(request, cardBulkIssuer.allocateNumbers(request));
     }
 
     @Override
@@ -76,7 +145,7 @@ public class CardServiceImpl implements CardService {
     @Override
     @Transactional(readOnly = true)
     public CardDto findById(Long cardId) {
-        Card card = cardRepository.findById(cardId)
+        CardView card = cardRepository.findViewById(cardId)
                 .orElseThrow(() -> new CardNotFoundException("Card with id <<" + cardId + ">> not found!"));
         return CardMapper.toDto(card);
     }
@@ -84,8 +153,7 @@ public class CardServiceImpl implements CardService {
     @Override
     @Transactional(readOnly = true)
     public Page<CardDto> findAllByUserId(Long userId, int page, int size) {
-        Specification<Card> spec = CardSpecifications.userId(userId);
-        Page<Card> cards = cardRepository.findAll(spec, PageRequest.of(page, size));
+        Page<CardView> cards = cardRepository.findViewsByUserId(userId, PageRequest.of(page, size));
         return cards.map(CardMapper::toDto);
     }
 
@@ -93,10 +161,56 @@ public class CardServiceImpl implements CardService {
     @Transactional(readOnly = true)
     public Page<CardDto> findAll(int page, int size) {
         PageRequest pageRequest = PageRequest.of(page, size);
-        return cardRepository.findAll(pageRequest)
+        return cardRepository.findAllViews(pageRequest)
+                .map(CardMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CardDto> findAllWithApproximateTotal(int page, int size) {
+        Slice<CardView> cards = cardRepository.findViewSlice(PageRequest.of(page, size));
+        return PageUtil.withApproximateTotal(cards, rowCountEstimator.estimate(RowCountEstimator.CARDS))
                 .map(CardMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CardDto> findAllAfter(String cursor, int size) {
+        List<CardView> cards = cardRepository.findViewsAfter(CursorUtil.decode(cursor), Limit.of(size + 1));
+        boolean hasNext = cards.size() > size;
+        List<CardView> content = hasNext ? cards.subList(0, size) : cards;
+        String nextCursor = hasNext ? CursorUtil.encode(content.getLast().id()) : null;
+        return new CursorPage<>(content.stream().map(CardMapper::toDto).toList(), nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(ExportFormat format, OutputStream outputStream) {
+        ObjectWriter jsonWriter = objectMapper.writerFor(CardDto.class);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try (Stream<Card> cards = cardRepository.streamAllOrderById()) {
+            if (format == ExportFormat.CSV) {
+                writer.write("id,cardNum,owner,expirationDate,status,balance\n");
+            }
+            Iterator<Card> iterator = cards.iterator();
+            while (iterator.hasNext()) {
+                Card card = iterator.next();
+                CardDto dto = CardMapper.toDto(card);
+                // Nothing is written back, so the persistence context does not need to keep what was exported.
+                entityManager.detach(card);
+                if (format == ExportFormat.CSV) {
+                    writer.write(toCsvLine(dto));
+                } else {
+                    writer.write(jsonWriter.writeValueAsString(dto));
+                }
+                writer.write('\n');
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Card export was interrupted", e);
+        }
+    }
+
     @Transactional
     public void transfer(Long senderId, String firstCardNum, String secondCardNum, BigDecimal amount) {
 
@@ -105,35 +219,61 @@ public class CardServiceImpl implements CardService {
             throw new InvalidCardNumberException("The card number contains characters that are not numbers!");
         }
 
-        if (!cardNumberVerification(senderId, firstCardNum.trim())) {
-            throw new ImpossibleMoneyTransferException("Card with number <<" + firstCardNum + ">> doesn't belong to this user!");
+        withConfirmedRefusal(cards -> tryTransfer(senderId, firstCardNum, secondCardNum, amount, cards),
+                firstCardNum.trim(), secondCardNum.trim());
+    }
+
+    @Override
+    public List<BatchTransferResult> transferBatch(Long senderId, List<TransferMoneyRequest> transfers) {
+        BatchTransferResult[] results = new BatchTransferResult[transfers.size()];
+
+        Set<String> cardNums = new HashSet<>();
+        for (TransferMoneyRequest transfer : transfers) {
+            cardNums.add(transfer.getFromCardNum().trim());
+            cardNums.add(transfer.getToCardNum().trim());
         }
+        cardNums.removeIf(cardNum -> !isValidCardNum(cardNum));
+        Set<String> indexed = new HashSet<>();
+        Map<String, CardKey> cards = findCardKeys(indexed, cardNums.toArray(String[]::new));
 
-        Card firstCard = cardRepository.findByCardNum(firstCardNum.trim())
-                .orElseThrow(() -> new CardNotFoundException("Card with number <<" + firstCardNum + ">> not found!"));
-        Card secondCard = cardRepository.findByCardNum(secondCardNum.trim())
-                .orElseThrow(() -> new CardNotFoundException("Card with number <<" + secondCardNum + ">> not found!"));
-        balanceTransfer(firstCard, secondCard, amount);
+        List<Integer> indexes = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            indexes.add(i);
+        }
+        List<Integer> refused = transferBatch(senderId, transfers, indexes, cards, results);
+
+        // Refused transfers have written nothing, so the ones refused on index entries the database contradicts
+        // are run once more, like in transfer().
+        Set<String> suspects = new HashSet<>();
+        for (int i : refused) {
+            suspects.add(transfers.get(i).getFromCardNum().trim());
+            suspects.add(transfers.get(i).getToCardNum().trim());
+        }
+        suspects.retainAll(indexed);
+        if (!suspects.isEmpty()) {
+            Map<String, CardKey> confirmed = confirmCardKeys(cards, suspects);
+            List<Integer> stale = refused.stream()
+                    .filter(i -> isChanged(cards, confirmed, transfers.get(i).getFromCardNum().trim())
+                            || isChanged(cards, confirmed, transfers.get(i).getToCardNum().trim()))
+                    .toList();
+            if (!stale.isEmpty()) {
+                transferBatch(senderId, transfers, stale, confirmed, results);
+            }
+        }
+        return Arrays.asList(results);
     }
 
     @Transactional
     public void depositMoney(Long userId, String cardNum, BigDecimal amount) {
-        if (!cardNumberVerification(userId, cardNum.trim())) {
-            throw new ImpossibleMoneyTransferException("Card with number <<" + cardNum + ">> doesn't belong to this user!");
+        if (!isValidCardNum(cardNum.trim())) {
+            throw new InvalidCardNumberException("The card number contains characters that are not numbers!");
         }
 
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Transfer amount must be greater than zero.");
         }
 
-        Card card = cardRepository.findByCardNum(cardNum.trim())
-                .orElseThrow(() -> new CardNotFoundException("Card with number <<" + cardNum + ">> not found!"));
-
-        if (!isValidCardStatus(card)) {
-            throw new IllegalArgumentException("You cannot deposit money onto this card: This card is blocked or expired.");
-        }
-
-        card.setBalance(card.getBalance().add(amount));
+        withConfirmedRefusal(cards -> tryDeposit(userId, cardNum, amount, cards), cardNum.trim());
     }
 
     @Transactional
@@ -145,7 +285,7 @@ public class CardServiceImpl implements CardService {
             throw new IllegalArgumentException("Card with id <<" + cardId + ">> doesn't belong to this user!");
         }
 
-        if (!isValidCardStatus(card)) {
+        if (!isValidCardStatus(card.getStatus())) {
             throw new IllegalArgumentException("This card has already been blocked or has expired.");
         }
         card.setStatus(CardStatus.BLOCKED);
@@ -156,59 +296,243 @@ public class CardServiceImpl implements CardService {
         if (!isValidCardNum(cardNum)) {
             throw new InvalidCardNumberException("The card number contains characters that are not numbers!");
         }
-        Card card = cardRepository.findByCardNumAndUser_Id(cardNum, userId)
+        return cardRepository.findBalanceByCardKeyAndUserId(CardKeyUtil.toCardKey(cardNum), userId)
                 .orElseThrow(() -> new CardNotFoundException("Card with cardNum <<" + cardNum
                         + ">> doesn't belong to this user or not found!"));
-        return card.getBalance();
     }
 
-    private boolean cardNumberVerification(Long senderId, String firstCardNum) {
-        boolean successVerification = false;
-
-        List<Card> cards = cardRepository.findAllByUserId(senderId);
-        if (cards.isEmpty()) {
-            throw new CardNotFoundException("The user doesn't have any cards.");
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAt(Long cardId, long seq) {
+        if (!cardRepository.existsById(cardId)) {
+            throw new CardNotFoundException("Card with id <<" + cardId + ">> not found!");
         }
+        return cardRepository.findBalanceAtSeq(cardId, seq);
+    }
 
-        for (Card card : cards) {
-            if (card.getCardNum().equals(firstCardNum)) {
-                successVerification = true;
-                break;
+    /**
+     * Runs an operation that returns its refusal instead of throwing it and has written nothing when it refuses.
+     * The card key index only sees the writes of this node, so a refusal based on its entries is checked against
+     * the database, and the operation runs once more if the cards turn out to have changed.
+     */
+    private void withConfirmedRefusal(Function<Map<String, CardKey>, RuntimeException> operation, String... cardNums) {
+        Set<String> indexed = new HashSet<>();
+        Map<String, CardKey> cards = findCardKeys(indexed, cardNums);
+        RuntimeException refusal = operation.apply(cards);
+        if (refusal != null && !indexed.isEmpty()) {
+            Map<String, CardKey> confirmed = confirmCardKeys(cards, indexed);
+            if (!confirmed.equals(cards)) {
+                refusal = operation.apply(confirmed);
             }
         }
-        return successVerification;
+        if (refusal != null) {
+            throw refusal;
+        }
     }
 
-    private void balanceTransfer(Card from, Card to, BigDecimal amount) {
-        if (!isValidCardStatus(from) || !isValidCardStatus(to)) {
-            throw new ImpossibleMoneyTransferException("One of the cards is blocked or expired.");
+    private RuntimeException tryTransfer(Long senderId, String firstCardNum, String secondCardNum, BigDecimal amount,
+                                         Map<String, CardKey> cards) {
+        CardKey from = cards.get(firstCardNum.trim());
+        if (from == null || !senderId.equals(from.userId())) {
+            return new ImpossibleMoneyTransferException("Card with number <<" + firstCardNum
+                    + ">> doesn't belong to this user!");
+        }
+        CardKey to = cards.get(secondCardNum.trim());
+        if (to == null) {
+            return new CardNotFoundException("Card with number <<" + secondCardNum + ">> not found!");
+        }
+        if (!isValidCardStatus(from.status()) || !isValidCardStatus(to.status())) {
+            return new ImpossibleMoneyTransferException("One of the cards is blocked or expired.");
         }
 
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Transfer amount must be greater than zero.");
         }
 
-        BigDecimal fromBalance = from.getBalance();
-        if (fromBalance.compareTo(amount) < 0) {
+        // Rows are locked by the updates themselves, always lower id first, so opposite transfers can't deadlock.
+        // The first update also checks the other card, so only a miss of the second one can follow a write.
+        if (from.id() <= to.id()) {
+            if (cardRepository.debit(from.id(), amount, to.id()) == 0) {
+                return new ImpossibleMoneyTransferException("Insufficient funds on the sender's card.");
+            }
+            credit(to, from, amount);
+        } else {
+            if (cardRepository.credit(to.id(), amount, CardTransactionType.TRANSFER_IN.name(), from.id()) == 0) {
+                return new ImpossibleMoneyTransferException("One of the cards is blocked or expired.");
+            }
+            debit(from, to, amount);
+        }
+        return null;
+    }
+
+    private RuntimeException tryDeposit(Long userId, String cardNum, BigDecimal amount, Map<String, CardKey> cards) {
+        CardKey card = cards.get(cardNum.trim());
+        if (card == null || !userId.equals(card.userId())) {
+            return new ImpossibleMoneyTransferException("Card with number <<" + cardNum
+                    + ">> doesn't belong to this user!");
+        }
+
+        if (!isValidCardStatus(card.status())
+                || cardRepository.credit(card.id(), amount, CardTransactionType.DEPOSIT.name(), null) == 0) {
+            return new IllegalArgumentException("You cannot deposit money onto this card: This card is blocked or expired.");
+        }
+        return null;
+    }
+
+    /**
+     * Checks and executes the given transfers of a batch, returning the indexes of the ones refused because of
+     * their cards.
+     */
+    private List<Integer> transferBatch(Long senderId, List<TransferMoneyRequest> transfers, List<Integer> indexes,
+                                        Map<String, CardKey> cards, BatchTransferResult[] results) {
+        List<Integer> refused = new ArrayList<>();
+        List<TransferItem> items = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            TransferMoneyRequest transfer = transfers.get(i);
+            String fromCardNum = transfer.getFromCardNum().trim();
+            String toCardNum = transfer.getToCardNum().trim();
+            CardKey from = cards.get(fromCardNum);
+            CardKey to = cards.get(toCardNum);
+
+            boolean validCardNums = isValidCardNum(fromCardNum) && isValidCardNum(toCardNum);
+            String refusal = validCardNums ? refusal(senderId, fromCardNum, toCardNum, from, to) : null;
+
+            if (!validCardNums) {
+                results[i] = BatchTransferResult.failed(i, "The card number contains characters that are not numbers!");
+            } else if (refusal != null) {
+                results[i] = BatchTransferResult.failed(i, refusal);
+                refused.add(i);
+            } else if (transfer.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                results[i] = BatchTransferResult.failed(i, "Transfer amount must be greater than zero.");
+            } else {
+                items.add(new TransferItem(i, from, to, transfer.getAmount()));
+            }
+        }
+
+        for (int start = 0; start < items.size(); start += batchChunkSize) {
+            List<TransferItem> chunk = items.subList(start, Math.min(start + batchChunkSize, items.size()));
+            try {
+                for (BatchTransferResult result : cardBatchTransferExecutor.execute(chunk)) {
+                    results[result.getIndex()] = result;
+                    if (!result.isSuccess()) {
+                        refused.add(result.getIndex());
+                    }
+                }
+            } catch (DataAccessException e) {
+                chunk.forEach(item -> results[item.index()] =
+                        BatchTransferResult.failed(item.index(), "The transfer could not be completed, try again later."));
+            }
+        }
+        return refused;
+    }
+
+    private String refusal(Long senderId, String fromCardNum, String toCardNum, CardKey from, CardKey to) {
+        if (from == null) {
+            return "Card with number <<" + fromCardNum + ">> not found!";
+        }
+        if (!senderId.equals(from.userId())) {
+            return "Card with number <<" + fromCardNum + ">> doesn't belong to this user!";
+        }
+        if (to == null) {
+            return "Card with number <<" + toCardNum + ">> not found!";
+        }
+        if (!isValidCardStatus(from.status()) || !isValidCardStatus(to.status())) {
+            return "One of the cards is blocked or expired.";
+        }
+        return null;
+    }
+
+    /**
+     * Resolves cards through the card key index, falling back to the database for cards it doesn't hold as
+     * active. Card numbers answered by the index are added to {@code indexed}.
+     */
+    private Map<String, CardKey> findCardKeys(Set<String> indexed, String... cardNums) {
+        Map<String, CardKey> cards = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (String cardNum : cardNums) {
+            long cardKey = CardKeyUtil.toCardKey(cardNum);
+            CardKey card = cardKeyIndex.find(cardNum, cardKey);
+            // Only active entries are taken from the index, anything else is confirmed by the database.
+            if (card != null && isValidCardStatus(card.status())) {
+                cards.put(cardNum, card);
+                indexed.add(cardNum);
+            } else {
+                missing.add(cardKey);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            cardRepository.findKeysByCardKeyIn(missing)
+                    .forEach(card -> cards.put(card.cardNum(), card));
+        }
+        return cards;
+    }
+
+    /**
+     * Reads the given cards again from the database and corrects their index entries.
+     */
+    private Map<String, CardKey> confirmCardKeys(Map<String, CardKey> cards, Set<String> cardNums) {
+        Map<String, CardKey> confirmed = new HashMap<>(cards);
+        confirmed.keySet().removeAll(cardNums);
+        cardRepository.findKeysByCardKeyIn(cardNums.stream().map(CardKeyUtil::toCardKey).toList())
+                .forEach(card -> confirmed.put(card.cardNum(), card));
+
+        for (String cardNum : cardNums) {
+            long cardKey = CardKeyUtil.toCardKey(cardNum);
+            CardKey card = confirmed.get(cardNum);
+            if (card == null) {
+                cardKeyIndex.remove(cardKey);
+            } else {
+                cardKeyIndex.put(cardKey, card.id(), card.userId(), card.status());
+            }
+        }
+        return confirmed;
+    }
+
+    private boolean isChanged(Map<String, CardKey> cards, Map<String, CardKey> confirmed, String cardNum) {
+        return !Objects.equals(cards.get(cardNum), confirmed.get(cardNum));
+    }
+
+    private void debit(CardKey card, CardKey counterparty, BigDecimal amount) {
+        if (cardRepository.debit(card.id(), amount, counterparty.id()) == 0) {
             throw new ImpossibleMoneyTransferException("Insufficient funds on the sender's card.");
         }
+    }
 
-        from.setBalance(fromBalance.subtract(amount));
-        to.setBalance(to.getBalance().add(amount));
+    private void credit(CardKey card, CardKey counterparty, BigDecimal amount) {
+        if (cardRepository.credit(card.id(), amount, CardTransactionType.TRANSFER_IN.name(), counterparty.id()) == 0) {
+            throw new ImpossibleMoneyTransferException("One of the cards is blocked or expired.");
+        }
     }
 
-    private boolean isValidCardStatus(Card card) {
-        return card.getStatus().equals(CardStatus.ACTIVE);
+    private boolean isValidCardStatus(CardStatus status) {
+        return status.equals(CardStatus.ACTIVE);
     }
 
 
     private void existCardByCardNum(String cardNum) {
-        Optional<Card> card = cardRepository.findByCardNum(cardNum);
-        if (card.isPresent()) {
+        if (cardRepository.existsByCardKey(CardKeyUtil.toCardKey(cardNum))) {
             throw new CardNumberTakenException("Card with number <<" + cardNum + ">> already exists!");
         }
     }
 
+    private String toCsvLine(CardDto dto) {
+        return String.join(",",
+                String.valueOf(dto.getId()),
+                dto.getCardNum(),
+                toCsvField(dto.getOwner()),
+                String.valueOf(dto.getExpirationDate()),
+                dto.getStatus(),
+                dto.getBalance().toPlainString());
+    }
+
+    private String toCsvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
     private boolean isValidCardNum(String cardNum) {
         if (cardNum.length() != 16) {
             return false;
@@ -0,0 +1,48 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.mapper.CardMapper;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.InvalidCardNumberException;
+import com.example.bankcards.repository.ReactiveCardRepository;
+import com.example.bankcards.service.ReactiveCardService;
+import com.example.bankcards.util.CardKeyUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reactive-reads.enabled", havingValue = "true")
+public class ReactiveCardServiceImpl implements ReactiveCardService {
+
+    private final ReactiveCardRepository reactiveCardRepository;
+
+    @Override
+    public Mono<Page<CardDto>> findAllByUserId(Long userId, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        return Mono.zip(
+                reactiveCardRepository.findViewsByUserId(userId, pageRequest.getOffset(), size)
+                        .map(CardMapper::toDto)
+                        .collectList(),
+                reactiveCardRepository.countByUserId(userId),
+                (cards, total) -> new PageImpl<>(cards, pageRequest, total));
+    }
+
+    @Override
+    public Mono<BigDecimal> getBalance(Long userId, String cardNum) {
+        if (cardNum.length() != 16 || !cardNum.matches("\\d+")) {
+            return Mono.error(new InvalidCardNumberException("The card number contains characters that are not numbers!"));
+        }
+        return reactiveCardRepository.findBalanceByCardKeyAndUserId(CardKeyUtil.toCardKey(cardNum), userId)
+                .switchIfEmpty(Mono.error(() -> new CardNotFoundException("Card with cardNum <<" + cardNum
+                        + ">> doesn't belong to this user or not found!")));
+    }
+
+}
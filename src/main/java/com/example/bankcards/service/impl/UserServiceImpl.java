@@ -2,20 +2,27 @@ package com.example.bankcards.service.impl;
 
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.dto.mapper.UserMapper;
+import com.example.bankcards.dto.response.CursorPage;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.RoleNotFoundException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.exception.UsernameTakenException;
 import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.RowCountEstimator;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.CursorUtil;
+import com.example.bankcards.util.PageUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -25,6 +32,7 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final RowCountEstimator rowCountEstimator;
 
     @Override
     @Transactional
@@ -70,8 +78,29 @@ public class UserServiceImpl implements UserService {
         return users.map(UserMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserDto> findAllWithApproximateTotal(int page, int size) {
+        Slice<User> users = userRepository.findAllBy(PageRequest.of(page, size));
+        return PageUtil.withApproximateTotal(users, rowCountEstimator.estimate(RowCountEstimator.USERS))
+                .map(UserMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> findAllAfter(String cursor, int size) {
+        List<Long> ids = userRepository.findIdsByIdGreaterThan(CursorUtil.decode(cursor), Limit.of(size + 1));
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+        String nextCursor = hasNext ? CursorUtil.encode(pageIds.getLast()) : null;
+        List<UserDto> users = pageIds.isEmpty() ? List.of() : userRepository.findAllByIdInOrderByIdAsc(pageIds).stream()
+                .map(UserMapper::toDto)
+                .toList();
+        return new CursorPage<>(users, nextCursor);
+    }
+
     private boolean existUserByUsername(String username) {
-        return userRepository.findByUsername(username).isPresent();
+        return userRepository.existsByUsername(username);
     }
 
 }
@@ -0,0 +1,12 @@
+package com.example.bankcards.util;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class CardKeyUtil {
+
+    public static Long toCardKey(String cardNum) {
+        return Long.parseLong(cardNum);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+@UtilityClass
+public class CursorUtil {
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(lastId).array());
+    }
+
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor!");
+        }
+        if (bytes.length != Long.BYTES) {
+            throw new IllegalArgumentException("Invalid cursor!");
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+}
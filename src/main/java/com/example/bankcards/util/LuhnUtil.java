@@ -0,0 +1,31 @@
+package com.example.bankcards.util;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class LuhnUtil {
+
+    /**
+     * @return the digit that makes {@code digits} followed by it pass the Luhn check
+     */
+    public static int checkDigit(CharSequence digits) {
+        int sum = 0;
+        // Counted from the right, the check digit will take position 1, so doubling starts with the last digit here.
+        for (int i = digits.length() - 1, position = 0; i >= 0; i--, position++) {
+            int digit = digits.charAt(i) - '0';
+            if (position % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static boolean isValid(String cardNum) {
+        return checkDigit(cardNum.substring(0, cardNum.length() - 1)) == cardNum.charAt(cardNum.length() - 1) - '0';
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.util;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+
+@UtilityClass
+public class PageUtil {
+
+    public static final String APPROXIMATE_TOTAL_HEADER = "X-Total-Count-Approximate";
+
+    /**
+     * Turns a slice into a page whose total is the given estimate. The total is exact on the last page, and is
+     * never below what the slice has already shown to exist.
+     */
+    public static <T> Page<T> withApproximateTotal(Slice<T> slice, long estimate) {
+        long offset = slice.getPageable().getOffset();
+        long total;
+        if (slice.hasNext()) {
+            total = Math.max(estimate, offset + slice.getNumberOfElements() + 1);
+        } else if (slice.hasContent()) {
+            total = offset + slice.getNumberOfElements();
+        } else {
+            total = Math.min(estimate, offset);
+        }
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.example.bankcards.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Level {@code L} has {@code wheelSize} buckets of {@code wheelSize^L} ticks each;
+ * an item sits on the lowest level whose range still covers its deadline and is cascaded one level down when
+ * the wheel enters its bucket, so adding is O(1) and every item is moved at most {@code levels} times.
+ * Deadlines in the past fire on the next {@link #advance}. Not thread-safe.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final List<List<Entry<T>>[]> wheels = new ArrayList<>();
+    private List<T> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long nowMillis) {
+        if (Integer.bitCount(wheelSize) != 1 || levels < 1 || (long) Integer.numberOfTrailingZeros(wheelSize) * levels > 62) {
+            throw new IllegalArgumentException("Wheel size must be a power of two and the wheel must fit in 62 bits");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = levels;
+        for (int level = 0; level < levels; level++) {
+            @SuppressWarnings("unchecked")
+            List<Entry<T>>[] buckets = new List[wheelSize];
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[slot] = new ArrayList<>();
+            }
+            wheels.add(buckets);
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * @return {@code false} if the deadline is beyond the range of the top level and the item was not added
+     */
+    public boolean add(long deadlineMillis, T item) {
+        long tick = deadlineMillis / tickMillis;
+        if (tick < currentTick) {
+            overdue.add(item);
+        } else if (!place(new Entry<>(tick, item))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Fires every item whose deadline is at or before {@code nowMillis}.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        if (!overdue.isEmpty()) {
+            List<T> items = overdue;
+            overdue = new ArrayList<>();
+            size -= items.size();
+            items.forEach(expired);
+        }
+        long nowTick = nowMillis / tickMillis;
+        while (currentTick <= nowTick) {
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << bits * level) - 1)) == 0) {
+                    cascade(level, (int) (currentTick >>> bits * level) & mask);
+                }
+            }
+            List<Entry<T>>[] buckets = wheels.get(0);
+            int slot = (int) currentTick & mask;
+            List<Entry<T>> due = buckets[slot];
+            if (!due.isEmpty()) {
+                buckets[slot] = new ArrayList<>();
+                size -= due.size();
+                due.forEach(entry -> expired.accept(entry.item()));
+            }
+            currentTick++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long horizonMillis() {
+        return ((1L << bits * levels) - (1L << bits * (levels - 1))) * tickMillis;
+    }
+
+    private boolean place(Entry<T> entry) {
+        long delta = entry.tick() - currentTick;
+        for (int level = 0; level < levels; level++) {
+            if (delta < 1L << bits * (level + 1)) {
+                wheels.get(level)[(int) (entry.tick() >>> bits * level) & mask].add(entry);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void cascade(int level, int slot) {
+        List<Entry<T>>[] buckets = wheels.get(level);
+        List<Entry<T>> entries = buckets[slot];
+        if (entries.isEmpty()) {
+            return;
+        }
+        buckets[slot] = new ArrayList<>();
+        entries.forEach(this::place);
+    }
+
+    private record Entry<T>(long tick, T item) {
+    }
+
+}
@@ -0,0 +1,20 @@
+ALTER TABLE cards ADD COLUMN ledger_seq BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS card_transactions(
+    card_id BIGINT NOT NULL,
+    seq BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    amount NUMERIC(20, 2) NOT NULL,
+    counterparty_card_id BIGINT,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (card_id, seq)
+);
+
+CREATE TABLE IF NOT EXISTS card_balance_checkpoints(
+    card_id BIGINT NOT NULL,
+    seq BIGINT NOT NULL,
+    balance NUMERIC(20, 2) NOT NULL,
+    PRIMARY KEY (card_id, seq)
+);
+
+INSERT INTO card_balance_checkpoints (card_id, seq, balance) SELECT id, 0, balance FROM cards;
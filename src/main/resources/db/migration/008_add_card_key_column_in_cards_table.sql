@@ -0,0 +1,9 @@
+ALTER TABLE cards ADD CONSTRAINT chk_cards_card_num_digits CHECK (card_num ~ '^[0-9]{16}$');
+
+ALTER TABLE cards ADD COLUMN card_key BIGINT GENERATED ALWAYS AS (CAST(card_num AS BIGINT)) STORED;
+
+ALTER TABLE cards ADD CONSTRAINT uq_cards_card_key UNIQUE (card_key);
+
+ALTER TABLE cards DROP CONSTRAINT IF EXISTS cards_card_num_key;
+
+CREATE INDEX IF NOT EXISTS idx_cards_user_id_card_key ON cards (user_id, card_key);
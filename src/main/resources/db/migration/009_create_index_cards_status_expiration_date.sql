@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_cards_status_expiration_date ON cards (status, expiration_date);
@@ -0,0 +1,3 @@
+ALTER SEQUENCE cards_id_seq INCREMENT BY 50;
+
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS card_number_ranges(
+    prefix VARCHAR(6) PRIMARY KEY,
+    next_account BIGINT NOT NULL
+);
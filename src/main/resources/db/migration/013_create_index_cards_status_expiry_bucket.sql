@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_cards_status_expiry_bucket ON cards (status, (id % 64), expiration_date, id);
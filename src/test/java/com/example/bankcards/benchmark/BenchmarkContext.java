@@ -0,0 +1,115 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application booted for a benchmark, with the {@code test} profile, against a Testcontainers Postgres, or
+ * against {@code -Dbenchmark.jdbc-url} (with {@code benchmark.username} and {@code benchmark.password}) when set.
+ * Scheduling is off, the port is random and logging is at WARN; the given properties are passed as arguments,
+ * so they win over the profile files. {@link Database} is the database part alone.
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private final Database database;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(Database database, ConfigurableApplicationContext context) {
+        this.database = database;
+        this.context = context;
+    }
+
+    public static BenchmarkContext start(String... properties) {
+        Database database = Database.start();
+        try {
+            return new BenchmarkContext(database, database.boot(List.of("test"), properties));
+        } catch (RuntimeException e) {
+            database.close();
+            throw e;
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        try {
+            context.close();
+        } finally {
+            database.close();
+        }
+    }
+
+    public static final class Database implements AutoCloseable {
+
+        private final PostgreSQLContainer<?> postgres;
+        private final String url;
+        private final String username;
+        private final String password;
+
+        private Database(PostgreSQLContainer<?> postgres, String url, String username, String password) {
+            this.postgres = postgres;
+            this.url = url;
+            this.username = username;
+            this.password = password;
+        }
+
+        public static Database start() {
+            String url = System.getProperty("benchmark.jdbc-url");
+            String username = System.getProperty("benchmark.username", "test");
+            String password = System.getProperty("benchmark.password", "pass");
+            if (url != null) {
+                return new Database(null, url, username, password);
+            }
+            PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.4")
+                    .withDatabaseName("testdb")
+                    .withUsername(username)
+                    .withPassword(password);
+            postgres.start();
+            return new Database(postgres, postgres.getJdbcUrl(), username, password);
+        }
+
+        public Connection connect() throws SQLException {
+            return DriverManager.getConnection(url, username, password);
+        }
+
+        /**
+         * Boots the application with the given profiles; the caller closes the context, the database stays up.
+         */
+        public ConfigurableApplicationContext boot(List<String> profiles, String... properties) {
+            List<String> args = new ArrayList<>(List.of(
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + username,
+                    "--spring.datasource.password=" + password,
+                    "--spring.jpa.show-sql=false",
+                    "--scheduling.enabled=false",
+                    "--server.port=0",
+                    "--logging.level.root=WARN"));
+            for (String property : properties) {
+                args.add("--" + property);
+            }
+            return new SpringApplicationBuilder(Application.class)
+                    .profiles(profiles.toArray(String[]::new))
+                    .run(args.toArray(String[]::new));
+        }
+
+        @Override
+        public void close() {
+            if (postgres != null) {
+                postgres.stop();
+            }
+        }
+
+    }
+
+}
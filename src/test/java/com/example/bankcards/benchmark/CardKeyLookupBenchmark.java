@@ -0,0 +1,117 @@
+package com.example.bankcards.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookups through the VARCHAR(16) card number index versus the BIGINT card key index on a table of
+ * {@code rows} cards. Index sizes are printed once the table is built. The database is chosen by
+ * {@link BenchmarkContext.Database}; the scratch table is kept between runs and rebuilt only when its size differs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardKeyLookupBenchmark {
+
+    private static final long FIRST_CARD = 4000000000000000L;
+    private static final long STEP = 7919L;
+
+    @Param({"10000000"})
+    private long rows;
+
+    private BenchmarkContext.Database database;
+    private Connection connection;
+    private PreparedStatement byCardNum;
+    private PreparedStatement byCardKey;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = BenchmarkContext.Database.start();
+        connection = database.connect();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS card_key_benchmark (card_num VARCHAR(16) NOT NULL, card_key BIGINT NOT NULL)");
+            ResultSet count = statement.executeQuery("SELECT count(*) FROM card_key_benchmark");
+            count.next();
+            if (count.getLong(1) != rows) {
+                statement.execute("DROP INDEX IF EXISTS uq_card_key_benchmark_card_num");
+                statement.execute("DROP INDEX IF EXISTS uq_card_key_benchmark_card_key");
+                statement.execute("TRUNCATE card_key_benchmark");
+                statement.execute("INSERT INTO card_key_benchmark (card_num, card_key) " +
+                        "SELECT CAST(k AS TEXT), k FROM (SELECT " + FIRST_CARD + " + g * " + STEP + " AS k " +
+                        "FROM generate_series(CAST(0 AS BIGINT), " + (rows - 1) + ") g) keys");
+                statement.execute("CREATE UNIQUE INDEX uq_card_key_benchmark_card_num ON card_key_benchmark (card_num)");
+                statement.execute("CREATE UNIQUE INDEX uq_card_key_benchmark_card_key ON card_key_benchmark (card_key)");
+                statement.execute("VACUUM ANALYZE card_key_benchmark");
+            }
+            ResultSet sizes = statement.executeQuery("SELECT " +
+                    "pg_size_pretty(pg_relation_size('uq_card_key_benchmark_card_num')), " +
+                    "pg_size_pretty(pg_relation_size('uq_card_key_benchmark_card_key'))");
+            sizes.next();
+            System.out.println("card_num index: " + sizes.getString(1) + ", card_key index: " + sizes.getString(2));
+        }
+
+        byCardNum = connection.prepareStatement("SELECT card_key FROM card_key_benchmark WHERE card_num = ?");
+        byCardKey = connection.prepareStatement("SELECT card_key FROM card_key_benchmark WHERE card_key = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public long lookupByCardNum() throws SQLException {
+        byCardNum.setString(1, Long.toString(randomCard()));
+        return fetch(byCardNum);
+    }
+
+    @Benchmark
+    public long lookupByCardKey() throws SQLException {
+        byCardKey.setLong(1, randomCard());
+        return fetch(byCardKey);
+    }
+
+    private long randomCard() {
+        return FIRST_CARD + ThreadLocalRandom.current().nextLong(rows) * STEP;
+    }
+
+    private long fetch(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : -1;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardKeyLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.service.CardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and, with {@code -prof gc}, allocation per call of the card read paths of {@link CardService}.
+ * Boots the application through {@link BenchmarkContext}; a page is 50 cards of a user with 1000 cards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardReadBenchmark {
+
+    private static final int CARDS = 1000;
+    private static final int PAGE_SIZE = 50;
+
+    private BenchmarkContext context;
+    private CardService cardService;
+    private Long userId;
+    private Long cardId;
+    private String cardNum;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM users WHERE username = 'benchmark-reads'");
+        userId = jdbcTemplate.queryForObject("INSERT INTO users (full_name, username, password) " +
+                "VALUES ('Benchmark User', 'benchmark-reads', 'password') RETURNING id", Long.class);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles WHERE name = 'USER'", userId);
+
+        List<Object[]> rows = new ArrayList<>(CARDS);
+        Timestamp expirationDate = Timestamp.valueOf(LocalDateTime.now().plusYears(10L));
+        for (int i = 0; i < CARDS; i++) {
+            rows.add(new Object[]{String.format("8%015d", i), "Benchmark User", expirationDate, new BigDecimal("100.00"), userId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cards (card_num, owner, expiration_date, status, balance, user_id) " +
+                "VALUES (?, ?, ?, 'ACTIVE', ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE cards");
+
+        cardNum = String.format("8%015d", CARDS / 2);
+        cardId = jdbcTemplate.queryForObject("SELECT id FROM cards WHERE card_num = ?", Long.class, cardNum);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CardDto findById() {
+        return cardService.findById(cardId);
+    }
+
+    @Benchmark
+    public Page<CardDto> findAllByUserId() {
+        return cardService.findAllByUserId(userId, 3, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<CardDto> findAll() {
+        return cardService.findAll(3, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BigDecimal getBalance() {
+        return cardService.getBalance(userId, cardNum);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardReadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.request.BulkIssueCardsRequest;
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.response.BulkIssueResult;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of persisting {@value #ROWS} cards, or {@value #ROWS} users, in one transaction through JPA.
+ * A JDBC batch size of 1 is the row-by-row baseline that identity ids forced on Hibernate; {@link #copyCards}
+ * issues the same cards through the bulk issuance path, which does not depend on the batch size.
+ * Boots the application through {@link BenchmarkContext}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertThroughputBenchmark {
+
+    private static final int ROWS = 500;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private BenchmarkContext context;
+    private CardRepository cardRepository;
+    private UserRepository userRepository;
+    private CardService cardService;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private Long userId;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        cardRepository = context.getBean(CardRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        cardService = context.getBean(CardService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'benchmark-inserts%'");
+        userId = jdbcTemplate.queryForObject("INSERT INTO users (full_name, username, password) " +
+                "VALUES ('Benchmark User', 'benchmark-inserts', 'password') RETURNING id", Long.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteRows() {
+        jdbcTemplate.update("DELETE FROM cards WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'benchmark-inserts-%'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Card> insertCards() {
+        LocalDateTime expirationDate = LocalDateTime.now().plusYears(5L);
+        return transactionTemplate.execute(tx -> {
+            User user = userRepository.getReferenceById(userId);
+            List<Card> cards = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                cards.add(Card.builder()
+                        .cardNum(String.format("7%015d", sequence++))
+                        .owner("Benchmark User")
+                        .expirationDate(expirationDate)
+                        .status(CardStatus.ACTIVE)
+                        .balance(BigDecimal.ZERO)
+                        .user(user)
+                        .build());
+            }
+            return cardRepository.saveAll(cards);
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BulkIssueResult copyCards() {
+        List<CreateCardRequest> cards = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            cards.add(new CreateCardRequest(String.format("7%015d", sequence++), userId));
+        }
+        return cardService.issueCards(BulkIssueCardsRequest.builder().cards(cards).build());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<User> insertUsers() {
+        return transactionTemplate.execute(tx -> {
+            List<User> users = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                users.add(User.builder()
+                        .fullName("Benchmark User")
+                        .username("benchmark-inserts-" + sequence++)
+                        .password("password")
+                        .build());
+            }
+            return userRepository.saveAll(users);
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InsertThroughputBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
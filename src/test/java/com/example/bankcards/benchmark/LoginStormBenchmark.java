@@ -0,0 +1,124 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.request.UserLoginRequest;
+import com.example.bankcards.dto.response.AuthStatusResponse;
+import com.example.bankcards.exception.PasswordHashingOverloadedException;
+import com.example.bankcards.service.AuthService;
+import com.example.bankcards.service.CardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer latency distribution (read p99 from the sample-time percentiles) on its own and while eight threads
+ * sign in as fast as they can, with password hashing on the bounded pool ({@code boundedHashing=true}) or on
+ * the calling threads. Boots the application through {@link BenchmarkContext}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginStormBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000.00");
+    private static final String FIRST_CARD_NUM = "7000000000000000";
+    private static final String SECOND_CARD_NUM = "7000000000000001";
+
+    @Param({"true", "false"})
+    private boolean boundedHashing;
+
+    private BenchmarkContext context;
+    private CardService cardService;
+    private AuthService authService;
+    private Long userId;
+    private boolean forward;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("auth.hashing.enabled=" + boundedHashing);
+        cardService = context.getBean(CardService.class);
+        authService = context.getBean(AuthService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM users WHERE username = 'benchmark-login'");
+        userId = jdbcTemplate.queryForObject("INSERT INTO users (full_name, username, password) " +
+                "VALUES ('Benchmark User', 'benchmark-login', ?) RETURNING id", Long.class,
+                context.getBean(PasswordEncoder.class).encode("password123"));
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles WHERE name = 'USER'", userId);
+
+        Timestamp expirationDate = Timestamp.valueOf(LocalDateTime.now().plusYears(10L));
+        for (String cardNum : new String[]{FIRST_CARD_NUM, SECOND_CARD_NUM}) {
+            jdbcTemplate.update("INSERT INTO cards (card_num, owner, expiration_date, status, balance, user_id) " +
+                    "VALUES (?, 'Benchmark User', ?, 'ACTIVE', ?, ?)", cardNum, expirationDate, INITIAL_BALANCE, userId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void transferAlone() {
+        transfer();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(1)
+    public void transferDuringStorm() {
+        transfer();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(8)
+    public AuthStatusResponse signIn() {
+        try {
+            return authService.signIn(new UserLoginRequest("benchmark-login", "password123"));
+        } catch (PasswordHashingOverloadedException e) {
+            return null;
+        }
+    }
+
+    private void transfer() {
+        // Only one thread transfers in either benchmark, so the direction needs no synchronization.
+        forward = !forward;
+        if (forward) {
+            cardService.transfer(userId, FIRST_CARD_NUM, SECOND_CARD_NUM, BigDecimal.ONE);
+        } else {
+            cardService.transfer(userId, SECOND_CARD_NUM, FIRST_CARD_NUM, BigDecimal.ONE);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginStormBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.projection.CardView;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer latency as the sender's card count grows. Boots the application through {@link BenchmarkContext}.
+ * {@code legacyOwnershipCheck} is the former ownership check: load all of the user's cards and scan them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferOwnershipBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000.00");
+
+    @Param({"1", "100", "1000", "10000"})
+    private int cardsPerUser;
+
+    private BenchmarkContext context;
+    private CardService cardService;
+    private CardRepository cardRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private Long userId;
+    private String firstCardNum;
+    private String secondCardNum;
+    private boolean forward;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+        cardRepository = context.getBean(CardRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM users WHERE username = 'benchmark'");
+        userId = jdbcTemplate.queryForObject("INSERT INTO users (full_name, username, password) " +
+                "VALUES ('Benchmark User', 'benchmark', 'password') RETURNING id", Long.class);
+
+        int cards = Math.max(2, cardsPerUser);
+        List<Object[]> rows = new ArrayList<>(cards);
+        Timestamp expirationDate = Timestamp.valueOf(LocalDateTime.now().plusYears(10L));
+        for (int i = 0; i < cards; i++) {
+            rows.add(new Object[]{String.format("9%015d", i), "Benchmark User", expirationDate, INITIAL_BALANCE, userId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cards (card_num, owner, expiration_date, status, balance, user_id) " +
+                "VALUES (?, ?, ?, 'ACTIVE', ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE cards");
+
+        // The sender's card is the last one inserted, the worst case for a linear scan.
+        firstCardNum = String.format("9%015d", cards - 1);
+        secondCardNum = String.format("9%015d", 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void transfer() {
+        forward = !forward;
+        if (forward) {
+            cardService.transfer(userId, firstCardNum, secondCardNum, BigDecimal.ONE);
+        } else {
+            cardService.transfer(userId, secondCardNum, firstCardNum, BigDecimal.ONE);
+        }
+    }
+
+    @Benchmark
+    public Boolean legacyOwnershipCheck() {
+        return readOnlyTransaction.execute(status -> {
+            for (CardView card : cardRepository.findViewsByUserId(userId, Pageable.unpaged())) {
+                if (card.cardNum().equals(firstCardNum)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransferOwnershipBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
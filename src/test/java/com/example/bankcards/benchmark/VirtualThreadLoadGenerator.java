@@ -0,0 +1,147 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.security.CustomUserDetails;
+import com.example.bankcards.security.service.JwtService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load test of the balance endpoint ({@code benchmark.path}, the blocking one by default, or
+ * {@code /api/v1/bank/cards/reactive/balance}): {@code benchmark.connections} clients (5000 by default),
+ * each on its own connection, send requests back to back for {@code benchmark.duration} seconds after a warm-up.
+ * Runs the application once per serving mode given as arguments ({@code platform} and {@code virtual} by
+ * default) and prints throughput, latency percentiles and errors. Not a JMH benchmark: JMH cannot hold
+ * thousands of concurrent callers. Run with {@code main} after {@code mvn test-compile}; the database is chosen
+ * by {@link BenchmarkContext.Database}. Raise {@code ulimit -n} above twice the connection count.
+ */
+public class VirtualThreadLoadGenerator {
+
+    private static final String CARD_NUM = "6000000000000000";
+    private static final int WARMUP_SECONDS = 10;
+    // Latency histogram in 100 us buckets up to 10 s, the last bucket takes everything slower.
+    private static final int BUCKET_MICROS = 100;
+    private static final int BUCKETS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        int connections = Integer.getInteger("benchmark.connections", 5000);
+        int duration = Integer.getInteger("benchmark.duration", 30);
+        String path = System.getProperty("benchmark.path", "/api/v1/bank/cards/balance");
+        List<String> modes = args.length == 0 ? List.of("platform", "virtual") : Arrays.asList(args);
+
+        try (BenchmarkContext.Database database = BenchmarkContext.Database.start()) {
+            for (String mode : modes) {
+                run(mode, connections, duration, path, database);
+            }
+        }
+    }
+
+    private static void run(String mode, int connections, int duration, String path,
+                            BenchmarkContext.Database database) throws Exception {
+        List<String> profiles = "virtual".equals(mode) ? List.of("test", "virtual") : List.of("test");
+        try (ConfigurableApplicationContext context = database.boot(profiles,
+                "reactive-reads.enabled=true",
+                "reactive-reads.pool.max-size=10",
+                "server.tomcat.max-connections=" + (connections + 1000),
+                "logging.level.org.apache.kafka=ERROR",
+                "logging.level.org.apache.catalina=OFF",
+                "logging.level.org.hibernate.engine.jdbc.spi=OFF")) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.update("DELETE FROM users WHERE username = 'benchmark-load'");
+            Long userId = jdbcTemplate.queryForObject("INSERT INTO users (full_name, username, password) " +
+                    "VALUES ('Benchmark User', 'benchmark-load', 'password') RETURNING id", Long.class);
+            jdbcTemplate.update("INSERT INTO cards (card_num, owner, expiration_date, status, balance, user_id) " +
+                            "VALUES (?, 'Benchmark User', ?, 'ACTIVE', ?, ?)", CARD_NUM,
+                    Timestamp.valueOf(LocalDateTime.now().plusYears(10L)), new BigDecimal("100.00"), userId);
+
+            String token = context.getBean(JwtService.class).generateJwtToken(new CustomUserDetails(userId,
+                    "benchmark-load", "password", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+            String port = context.getEnvironment().getProperty("local.server.port");
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .method("GET", HttpRequest.BodyPublishers.ofString("{\"cardNum\":\"" + CARD_NUM + "\"}"))
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+
+            load(mode, connections, duration, request);
+        }
+    }
+
+    private static void load(String mode, int connections, int duration, HttpRequest request) throws Exception {
+        AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        LongAdder errors = new LongAdder();
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+             ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                callers.submit(() -> {
+                    while (System.nanoTime() < measureTo) {
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long end = System.nanoTime();
+                        // Counted by completion time: at this concurrency a single request can outlast the window.
+                        if (end < measureFrom || end > measureTo) {
+                            continue;
+                        }
+                        if (ok) {
+                            long bucket = TimeUnit.NANOSECONDS.toMicros(end - start) / BUCKET_MICROS;
+                            histogram.incrementAndGet((int) Math.min(bucket, BUCKETS - 1));
+                        } else {
+                            errors.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += histogram.get(i);
+        }
+        System.out.printf("%-8s connections=%d  throughput=%.0f req/s  p50=%.1f ms  p99=%.1f ms  p99.9=%.1f ms  errors=%d%n",
+                mode, connections, (double) count / duration,
+                percentile(histogram, count, 0.50), percentile(histogram, count, 0.99),
+                percentile(histogram, count, 0.999), errors.sum());
+    }
+
+    private static double percentile(AtomicLongArray histogram, long count, double quantile) {
+        long rank = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= rank && seen > 0) {
+                return (i + 1) * BUCKET_MICROS / 1000.0;
+            }
+        }
+        return Double.NaN;
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.example.bankcards.config.datasource;
+
+import com.example.bankcards.GenerateJwtForTests;
+import com.example.bankcards.TestContainer;
+import com.example.bankcards.dto.request.BalanceRequest;
+import com.example.bankcards.dto.request.DepositMoneyRequest;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The replica is a second, independent database with the same schema, so "replication lag" is simply
+ * whatever the test writes to one side and not the other.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "replica.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingTest extends TestContainer {
+
+    @Container
+    static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:17.4")
+            .withDatabaseName("replicadb")
+            .withUsername("test")
+            .withPassword("pass");
+
+    private static final String WRITER_CARD = "4000000000000001";
+    private static final String READER_CARD = "4000000000000002";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GenerateJwtForTests generatorJwt;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long writerId;
+    private Long readerId;
+
+    @DynamicPropertySource
+    static void configureReplica(DynamicPropertyRegistry registry) {
+        registry.add("replica.urls", replica::getJdbcUrl);
+        registry.add("replica.username", replica::getUsername);
+        registry.add("replica.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void migrateReplica() throws Exception {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(replicaDataSource());
+        liquibase.setChangeLog("classpath:db/migration/changelog-master.yml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replicaDataSource());
+        replicaJdbc.update("DELETE FROM cards");
+        replicaJdbc.update("DELETE FROM users");
+
+        writerId = createUser("replica-writer");
+        readerId = createUser("replica-reader");
+        Timestamp expirationDate = Timestamp.valueOf(LocalDateTime.now().plusYears(3L));
+        for (Object[] card : new Object[][]{{WRITER_CARD, writerId}, {READER_CARD, readerId}}) {
+            String insert = "INSERT INTO cards (card_num, owner, expiration_date, status, balance, user_id) " +
+                    "VALUES (?, 'Replica Test', ?, 'ACTIVE', ?, ?)";
+            jdbcTemplate.update(insert, card[0], expirationDate, new BigDecimal("100.00"), card[1]);
+            // The replica is behind: it has not seen the last deposit yet.
+            replicaJdbc.update(insert, card[0], expirationDate, new BigDecimal("50.00"), card[1]);
+        }
+    }
+
+    @Test
+    void readOnlyTransactions_GoToReplica() throws Exception {
+        getBalance(readerId, READER_CARD, 50.00);
+        getBalance(writerId, WRITER_CARD, 50.00);
+    }
+
+    @Test
+    void readOnlyTransactions_AfterOwnWrite_GoToPrimary() throws Exception {
+        mockMvc.perform(post("/api/v1/bank/cards/deposit")
+                        .header("Authorization", "Bearer " + generatorJwt.generateJwtToken(writerId, "USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DepositMoneyRequest(WRITER_CARD, BigDecimal.TEN))))
+                .andExpect(status().isOk());
+
+        getBalance(writerId, WRITER_CARD, 110.00);
+        getBalance(readerId, READER_CARD, 50.00);
+    }
+
+    private void getBalance(Long userId, String cardNum, double expected) throws Exception {
+        mockMvc.perform(get("/api/v1/bank/cards/balance")
+                        .header("Authorization", "Bearer " + generatorJwt.generateJwtToken(userId, "USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BalanceRequest(cardNum))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(expected));
+    }
+
+    private Long createUser(String username) {
+        Long id = jdbcTemplate.queryForObject("INSERT INTO users (full_name, username, password) " +
+                "VALUES ('Replica Test', ?, 'password') RETURNING id", Long.class, username);
+        new JdbcTemplate(replicaDataSource()).update("INSERT INTO users (id, full_name, username, password) " +
+                "VALUES (?, 'Replica Test', ?, 'password')", id, username);
+        return id;
+    }
+
+    private static DriverManagerDataSource replicaDataSource() {
+        return new DriverManagerDataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword());
+    }
+
+}
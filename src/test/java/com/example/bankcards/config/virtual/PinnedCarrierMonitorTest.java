@@ -0,0 +1,48 @@
+package com.example.bankcards.config.virtual;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PinnedCarrierMonitorTest {
+
+    @Test
+    @DisplayName("PinnedCarrierMonitor: Сон внутри synchronized на виртуальном потоке фиксируется как закрепление")
+    void start_SleepInsideSynchronized_RecordsPinnedEvent() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PinnedCarrierMonitor monitor = new PinnedCarrierMonitor(Duration.ofMillis(1), meterRegistry);
+        Timer pinned = meterRegistry.get("jvm.threads.virtual.pinned").timer();
+        Object lock = new Object();
+
+        monitor.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            // The stream may still be starting when the first pin happens, so pin until it is seen.
+            while (pinned.count() == 0 && System.nanoTime() < deadline) {
+                Thread.ofVirtual().start(() -> {
+                    synchronized (lock) {
+                        try {
+                            Thread.sleep(20);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }).join();
+                Thread.sleep(100);
+            }
+        } finally {
+            monitor.stop();
+        }
+
+        assertTrue(pinned.count() > 0);
+        assertFalse(monitor.isRunning());
+    }
+
+}
@@ -4,6 +4,7 @@ import com.example.bankcards.config.security.SecurityConfig;
 import com.example.bankcards.dto.request.UserLoginRequest;
 import com.example.bankcards.dto.request.UserRegistrationRequest;
 import com.example.bankcards.dto.response.AuthStatusResponse;
+import com.example.bankcards.exception.PasswordHashingOverloadedException;
 import com.example.bankcards.exception.UsernameTakenException;
 import com.example.bankcards.security.filter.JwtRequestFilter;
 import com.example.bankcards.service.AuthService;
@@ -16,6 +17,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -25,6 +27,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -130,4 +133,22 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.state").value("Incorrect username or password is specified"));
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("signIn: пул хеширования паролей переполнен (503 Service Unavailable)")
+    void signIn_HashingPoolSaturated() throws Exception {
+        UserLoginRequest request = new UserLoginRequest();
+        request.setUsername("validUser");
+        request.setPassword("validPass");
+
+        Mockito.when(authService.signIn(any(UserLoginRequest.class)))
+                .thenThrow(new PasswordHashingOverloadedException("Too many authentication requests, try again later!"));
+
+        mockMvc.perform(post("/api/v1/bank/auth/signIn")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.errors.error").value("Too many authentication requests, try again later!"));
+    }
+
+}
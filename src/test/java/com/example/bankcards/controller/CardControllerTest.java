@@ -5,7 +5,9 @@ import com.example.bankcards.TestContainer;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.CardStatus;
 import com.example.bankcards.dto.request.BalanceRequest;
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.BlockCardRequest;
+import com.example.bankcards.dto.request.BulkIssueCardsRequest;
 import com.example.bankcards.dto.request.ChangeCardStatusRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.request.DepositMoneyRequest;
@@ -16,6 +18,7 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.RoleRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.LuhnUtil;
 import com.example.bankcards.util.NumberEncryptionUtil;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -29,6 +32,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
@@ -37,11 +41,14 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -138,6 +145,24 @@ class CardControllerTest extends TestContainer {
                 .andExpect(jsonPath("$.cardNum").value(encryptedCardNum));
     }
 
+    @Test
+    void createCard_WithoutCardNum_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+        String response = mockMvc.perform(post("/api/v1/bank/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateCardRequest(null, userId))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        CardDto cardDto = objectMapper.readValue(response, CardDto.class);
+        String cardNum = cardRepository.findById(cardDto.getId()).orElseThrow().getCardNum();
+        assertThat(cardNum).startsWith("220070").hasSize(16);
+        assertThat(LuhnUtil.isValid(cardNum)).isTrue();
+    }
+
     @Test
     void createCard_Failure_InvalidCardNum() throws Exception {
         CreateCardRequest request = new CreateCardRequest("11112222333wrong", adminId);
@@ -180,6 +205,126 @@ class CardControllerTest extends TestContainer {
                         .value("You do not have sufficient permissions to access this resource. Required role: ADMIN."));
     }
 
+    @Test
+    void issueCards_GivenNumbers_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+        mockMvc.perform(post("/api/v1/bank/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateCardRequest("1111222233334444", adminId))))
+                .andExpect(status().isOk());
+
+        BulkIssueCardsRequest request = BulkIssueCardsRequest.builder()
+                .cards(List.of(
+                        new CreateCardRequest("1111222233335555", userId),
+                        new CreateCardRequest("1111222233335555", adminId),
+                        new CreateCardRequest("1111222233334444", userId),
+                        new CreateCardRequest("0000222233336666", userId)))
+                .build();
+        mockMvc.perform(post("/api/v1/bank/cards/bulk")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.issued").value(2))
+                .andExpect(jsonPath("$.rejectedCardNums[0]").value("1111222233335555"))
+                .andExpect(jsonPath("$.rejectedCardNums[1]").value("1111222233334444"));
+
+        String userToken = generatorJwt.generateJwtToken(userId, "USER");
+        mockMvc.perform(post("/api/v1/bank/cards/deposit")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DepositMoneyRequest("0000222233336666", new BigDecimal("10.00")))))
+                .andExpect(status().isOk());
+        assertThat(cardRepository.findAll())
+                .filteredOn(card -> card.getUser().getId().equals(userId))
+                .extracting(Card::getCardNum)
+                .containsExactlyInAnyOrder("1111222233335555", "0000222233336666");
+    }
+
+    @Test
+    void issueCards_GeneratedNumbers_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+        BulkIssueCardsRequest request = BulkIssueCardsRequest.builder()
+                .userIds(List.of(adminId, userId))
+                .cardsPerUser(3)
+                .build();
+        mockMvc.perform(post("/api/v1/bank/cards/bulk")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.issued").value(6))
+                .andExpect(jsonPath("$.rejectedCardNums").isEmpty());
+
+        // Cards created one by one afterwards take ids that don't collide with the copied ones.
+        mockMvc.perform(post("/api/v1/bank/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateCardRequest("1111222233334444", userId))))
+                .andExpect(status().isOk());
+        assertThat(cardRepository.findAll())
+                .filteredOn(card -> card.getUser().getId().equals(userId))
+                .hasSize(4);
+    }
+
+    @Test
+    void issueCards_WithoutNumbers_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+        BulkIssueCardsRequest request = BulkIssueCardsRequest.builder()
+                .cards(List.of(
+                        new CreateCardRequest(null, userId),
+                        new CreateCardRequest("1111222233334444", userId),
+                        new CreateCardRequest(null, adminId)))
+                .build();
+        mockMvc.perform(post("/api/v1/bank/cards/bulk")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.issued").value(3))
+                .andExpect(jsonPath("$.rejectedCardNums").isEmpty());
+
+        assertThat(cardRepository.findAll())
+                .filteredOn(card -> card.getUser().getId().equals(userId))
+                .extracting(Card::getCardNum)
+                .hasSize(2)
+                .contains("1111222233334444")
+                .allMatch(cardNum -> cardNum.matches("\\d{16}"));
+    }
+
+    @Test
+    void issueCards_Failure_UserNotFound() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+        BulkIssueCardsRequest request = BulkIssueCardsRequest.builder()
+                .userIds(List.of(99L))
+                .cardsPerUser(1)
+                .build();
+        mockMvc.perform(post("/api/v1/bank/cards/bulk")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errors.error").value("Users with ids <<[99]>> not found!"));
+        assertThat(cardRepository.count()).isZero();
+    }
+
+    @Test
+    void issueCards_Failure_BothSourcesGiven() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+        BulkIssueCardsRequest request = BulkIssueCardsRequest.builder()
+                .cards(List.of(new CreateCardRequest("1111222233334444", userId)))
+                .userIds(List.of(userId))
+                .cardsPerUser(1)
+                .build();
+        mockMvc.perform(post("/api/v1/bank/cards/bulk")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.singleSource").value("Either cards or userIds with cardsPerUser must be given!"));
+    }
+
     @Test
     void deleteCard_Success() throws Exception {
         CreateCardRequest request = new CreateCardRequest("1111222233332222", adminId);
@@ -230,6 +375,107 @@ class CardControllerTest extends TestContainer {
                 .andExpect(status().is(401));
     }
 
+    @Test
+    void exportCards_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+
+        for (String cardNum : List.of("2000000000000001", "2000000000000002")) {
+            mockMvc.perform(post("/api/v1/bank/cards")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new CreateCardRequest(cardNum, adminId))))
+                    .andExpect(status().isOk());
+        }
+
+        MvcResult ndjson = mockMvc.perform(get("/api/v1/bank/cards/export")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("cardNum").asText())
+                .isEqualTo(NumberEncryptionUtil.encryptCardNumber("2000000000000001"));
+
+        MvcResult csv = mockMvc.perform(get("/api/v1/bank/cards/export")
+                        .param("format", "CSV")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] rows = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertThat(rows).hasSize(3);
+        assertThat(rows[0]).isEqualTo("id,cardNum,owner,expirationDate,status,balance");
+        assertThat(rows[2]).contains(NumberEncryptionUtil.encryptCardNumber("2000000000000002"), "Test Admin", "ACTIVE");
+    }
+
+    @Test
+    void exportCards_Failure_WrongRole() throws Exception {
+        String token = generatorJwt.generateJwtToken(userId, "USER");
+
+        mockMvc.perform(get("/api/v1/bank/cards/export")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void findAllCards_ApproximateTotalByDefault() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+
+        mockMvc.perform(get("/api/v1/bank/cards/all")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count-Approximate", "true"));
+
+        mockMvc.perform(get("/api/v1/bank/cards/all")
+                        .param("exactTotal", "true")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count-Approximate"));
+    }
+
+    @Test
+    void findAllCardsByCursor_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+
+        for (String cardNum : List.of("1000000000000001", "1000000000000002", "1000000000000003")) {
+            mockMvc.perform(post("/api/v1/bank/cards")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new CreateCardRequest(cardNum, adminId))))
+                    .andExpect(status().isOk());
+        }
+
+        String firstPage = mockMvc.perform(get("/api/v1/bank/cards/all/cursor")
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/bank/cards/all/cursor")
+                        .param("size", "2")
+                        .param("cursor", cursor)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void findAllCardsByCursor_Failure_WrongRole() throws Exception {
+        String token = generatorJwt.generateJwtToken(userId, "USER");
+
+        mockMvc.perform(get("/api/v1/bank/cards/all/cursor")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void depositMoney_Success() throws Exception {
         String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
@@ -254,6 +500,67 @@ class CardControllerTest extends TestContainer {
                 .andExpect(content().string("The money has been successfully deposited onto the card."));
     }
 
+    @Test
+    void depositMoney_SameIdempotencyKey_DepositedOnce() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+
+        mockMvc.perform(post("/api/v1/bank/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateCardRequest("1111222233334444", adminId))))
+                .andExpect(status().isOk());
+
+        String request = objectMapper.writeValueAsString(new DepositMoneyRequest("1111222233334444", new BigDecimal("500.0")));
+        mockMvc.perform(post("/api/v1/bank/cards/deposit")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Idempotency-Key", "deposit-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "false"))
+                .andExpect(content().string("The money has been successfully deposited onto the card."));
+
+        mockMvc.perform(post("/api/v1/bank/cards/deposit")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Idempotency-Key", "deposit-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().string("The money has been successfully deposited onto the card."));
+
+        assertThat(cardRepository.findBalanceByCardKeyAndUserId(1111222233334444L, adminId).orElseThrow())
+                .isEqualByComparingTo("500.0");
+    }
+
+    @Test
+    void depositMoney_Failure_IdempotencyKeyReused() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+
+        mockMvc.perform(post("/api/v1/bank/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateCardRequest("1111222233334444", adminId))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/bank/cards/deposit")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Idempotency-Key", "deposit-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DepositMoneyRequest("1111222233334444", new BigDecimal("500.0")))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/bank/cards/deposit")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Idempotency-Key", "deposit-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DepositMoneyRequest("1111222233334444", new BigDecimal("700.0")))))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertThat(cardRepository.findBalanceByCardKeyAndUserId(1111222233334444L, adminId).orElseThrow())
+                .isEqualByComparingTo("500.0");
+    }
+
     @Test
     void transferMoney_Success() throws Exception {
 
@@ -299,6 +606,50 @@ class CardControllerTest extends TestContainer {
                 .andExpect(content().string("Money transfer successfully completed."));
     }
 
+    @Test
+    void transferMoneyBatch_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+
+        for (String cardNum : List.of("1111222233334444", "3232424244445555")) {
+            mockMvc.perform(post("/api/v1/bank/cards")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new CreateCardRequest(cardNum, adminId))))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(post("/api/v1/bank/cards/deposit")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DepositMoneyRequest("1111222233334444", new BigDecimal("500.0")))))
+                .andExpect(status().isOk());
+
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                new TransferMoneyRequest("1111222233334444", "3232424244445555", new BigDecimal("200.0")),
+                new TransferMoneyRequest("1111222233334444", "3232424244445555", new BigDecimal("400.0")),
+                new TransferMoneyRequest("1111222233334444", "9999888877776666", new BigDecimal("10.0")),
+                new TransferMoneyRequest("3232424244445555", "1111222233334444", new BigDecimal("50.0"))
+        ));
+
+        mockMvc.perform(post("/api/v1/bank/cards/transfers/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].error").value("Insufficient funds on the sender's card."))
+                .andExpect(jsonPath("$[2].success").value(false))
+                .andExpect(jsonPath("$[2].error").value("Card with number <<9999888877776666>> not found!"))
+                .andExpect(jsonPath("$[3].success").value(false));
+
+        assertThat(cardRepository.findBalanceByCardKeyAndUserId(1111222233334444L, adminId).orElseThrow())
+                .isEqualByComparingTo("300.0");
+        assertThat(cardRepository.findBalanceByCardKeyAndUserId(3232424244445555L, adminId).orElseThrow())
+                .isEqualByComparingTo("200.0");
+    }
+
     @Test
     void changeStatus_Success() throws Exception{
         String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
@@ -414,4 +765,40 @@ class CardControllerTest extends TestContainer {
                 .andExpect(jsonPath("$").value(depositMoneyRequest.getAmount()));
     }
 
+    @Test
+    void getBalanceAt_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+
+        CreateCardRequest createRequest = new CreateCardRequest("1111222233334444", adminId);
+        String response = mockMvc.perform(post("/api/v1/bank/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        CardDto cardDto = objectMapper.readValue(response, CardDto.class);
+
+        for (String amount : List.of("500.00", "300.00")) {
+            mockMvc.perform(post("/api/v1/bank/cards/deposit")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new DepositMoneyRequest("1111222233334444",
+                                    new BigDecimal(amount)))))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/v1/bank/cards/" + cardDto.getId() + "/ledger/balance")
+                        .header("Authorization", "Bearer " + token)
+                        .param("seq", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(500.0));
+
+        mockMvc.perform(get("/api/v1/bank/cards/" + cardDto.getId() + "/ledger/balance")
+                        .header("Authorization", "Bearer " + token)
+                        .param("seq", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(800.0));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.GenerateJwtForTests;
+import com.example.bankcards.TestContainer;
+import com.example.bankcards.dto.request.BalanceRequest;
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.NumberEncryptionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "reactive-reads.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReactiveCardControllerTest extends TestContainer {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GenerateJwtForTests generatorJwt;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        Role role = roleRepository.findByName("ADMIN")
+                .orElseThrow(() -> new RuntimeException("Admin Role not found!"));
+        User user = userRepository.save(User.builder()
+                .username("ReactiveUser")
+                .fullName("Reactive User")
+                .password("password123")
+                .roles(Set.of(role))
+                .build());
+        userId = user.getId();
+
+        String token = generatorJwt.generateJwtToken(userId, "ADMIN");
+        for (String cardNum : List.of("3000000000000001", "3000000000000002", "3000000000000003")) {
+            try {
+                mockMvc.perform(post("/api/v1/bank/cards")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new CreateCardRequest(cardNum, userId))))
+                        .andExpect(status().isOk());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Test
+    void findAllYourCards_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(userId, "USER");
+
+        MvcResult result = mockMvc.perform(get("/api/v1/bank/cards/reactive")
+                        .param("page", "1")
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].cardNum").value(NumberEncryptionUtil.encryptCardNumber("3000000000000003")))
+                .andExpect(jsonPath("$.totalElements").value(3));
+    }
+
+    @Test
+    void getBalance_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(userId, "USER");
+
+        MvcResult result = mockMvc.perform(get("/api/v1/bank/cards/reactive/balance")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BalanceRequest("3000000000000002"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(0));
+    }
+
+    @Test
+    void getBalance_Failure_NotOwned() throws Exception {
+        String token = generatorJwt.generateJwtToken(userId + 1, "USER");
+
+        MvcResult result = mockMvc.perform(get("/api/v1/bank/cards/reactive/balance")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BalanceRequest("3000000000000002"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findAllYourCards_Failure_Unauthorized() throws Exception {
+        mockMvc.perform(get("/api/v1/bank/cards/reactive"))
+                .andExpect(status().is(401));
+    }
+
+}
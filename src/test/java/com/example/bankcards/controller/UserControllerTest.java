@@ -217,4 +217,41 @@ class UserControllerTest extends TestContainer {
                     .value("You do not have sufficient permissions to access this resource. Required role: ADMIN."));
     }
 
-}
\ No newline at end of file
+    @Test
+    void findAllByCursor_Success() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+        userRepository.save(User.builder()
+                .username("Another")
+                .fullName("Another User")
+                .password("password123")
+                .build());
+
+        String firstPage = mockMvc.perform(get("/api/v1/bank/users/cursor")
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/bank/users/cursor")
+                        .param("size", "2")
+                        .param("cursor", cursor)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].username").value("Another"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void findAllByCursor_Failure_InvalidCursor() throws Exception {
+        String token = generatorJwt.generateJwtToken(adminId, "ADMIN");
+        mockMvc.perform(get("/api/v1/bank/users/cursor")
+                        .param("cursor", "not-a-cursor")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isBadRequest());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.CardKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CardKeyIndexTest {
+
+    @Test
+    @DisplayName("find: Индекс совпадает с HashMap после случайных вставок и удалений")
+    void find_MatchesHashMapAfterRandomOperations() {
+        CardKeyIndex index = new CardKeyIndex(3000);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            // A narrow key range forces long probe chains and many deletions inside them.
+            long cardKey = 4000000000000000L + random.nextInt(4000);
+            if (random.nextInt(3) == 0) {
+                index.remove(cardKey);
+                expected.remove(cardKey);
+            } else if (expected.size() < 3000 || expected.containsKey(cardKey)) {
+                index.put(cardKey, i, 7L, CardStatus.ACTIVE);
+                expected.put(cardKey, (long) i);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (long cardKey = 4000000000000000L; cardKey < 4000000000004000L; cardKey++) {
+            CardKey card = index.find(Long.toString(cardKey), cardKey);
+            if (expected.containsKey(cardKey)) {
+                assertEquals(expected.get(cardKey), card.id());
+                assertEquals(7L, card.userId());
+            } else {
+                assertNull(card);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("load: Строки загрузки не затирают ключи, изменённые во время загрузки")
+    void load_SkipsKeysWrittenWhileLoading() {
+        CardKeyIndex index = new CardKeyIndex(16);
+
+        index.startLoading();
+        index.put(1L, 10L, 5L, CardStatus.BLOCKED);
+        index.remove(2L);
+        index.load(1L, 1L, 5L, CardStatus.ACTIVE);
+        index.load(2L, 2L, 5L, CardStatus.ACTIVE);
+        index.load(3L, 3L, 5L, CardStatus.ACTIVE);
+        index.finishLoading();
+        index.load(2L, 2L, 5L, CardStatus.ACTIVE);
+
+        assertEquals(new CardKey(10L, "0000000000000001", 5L, CardStatus.BLOCKED), index.find("0000000000000001", 1L));
+        assertEquals(3L, index.find("0000000000000003", 3L).id());
+        assertEquals(2L, index.find("0000000000000002", 2L).id());
+    }
+
+    @Test
+    @DisplayName("put: Карты сверх заданной ёмкости не индексируются")
+    void put_BeyondCapacity_NotIndexed() {
+        CardKeyIndex index = new CardKeyIndex(2);
+
+        index.put(0L, 1L, null, CardStatus.ACTIVE);
+        index.put(1L, 2L, 5L, CardStatus.BLOCKED);
+        index.put(2L, 3L, 5L, CardStatus.ACTIVE);
+
+        assertEquals(2, index.size());
+        assertEquals(new CardKey(1L, "0000000000000000", null, CardStatus.ACTIVE), index.find("0000000000000000", 0L));
+        assertEquals(CardStatus.BLOCKED, index.find("0000000000000001", 1L).status());
+        assertNull(index.find("0000000000000002", 2L));
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.TestContainer;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@ActiveProfiles("test")
+class RoleCacheTest extends TestContainer {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("findByName: Повторный поиск роли не обращается к базе данных")
+    void findByName_SecondCall_ServedFromCache() {
+        roleRepository.findByName("USER").orElseThrow();
+        statistics.clear();
+
+        Role role = roleRepository.findByName("USER").orElseThrow();
+
+        assertEquals("USER", role.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("findById: Роли пользователя загружаются из кэша, изменение ролей сбрасывает кэш")
+    void findById_RolesServedFromCacheAndInvalidatedOnUpdate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Role userRole = roleRepository.findByName("USER").orElseThrow();
+        Role adminRole = roleRepository.findByName("ADMIN").orElseThrow();
+        Long userId = userRepository.save(User.builder()
+                .fullName("Cached User")
+                .username("role-cache-user")
+                .password("password")
+                .roles(Set.of(userRole))
+                .build()).getId();
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> userRepository.findById(userId).orElseThrow().getRoles().size());
+            statistics.clear();
+
+            int roles = transactionTemplate.execute(tx -> userRepository.findById(userId).orElseThrow().getRoles().size());
+
+            assertEquals(1, roles);
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertTrue(statistics.getCollectionStatistics(User.class.getName() + ".roles").getCacheHitCount() > 0);
+
+            transactionTemplate.executeWithoutResult(tx -> userRepository.findById(userId).orElseThrow().getRoles().add(adminRole));
+
+            roles = transactionTemplate.execute(tx -> userRepository.findById(userId).orElseThrow().getRoles().size());
+
+            assertEquals(2, roles);
+        } finally {
+            userRepository.deleteById(userId);
+        }
+    }
+
+}
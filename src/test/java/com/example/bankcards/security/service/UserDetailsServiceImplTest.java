@@ -0,0 +1,74 @@
+package com.example.bankcards.security.service;
+
+import com.example.bankcards.dto.projection.UserCredentials;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetails;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Test
+    @DisplayName("loadUserByUsername: Роли собираются из строк лёгкого запроса без загрузки сущности")
+    void loadUserByUsername_Success_RolesFromCredentialRows() {
+        when(userRepository.findCredentialsByUsername("serega")).thenReturn(List.of(
+                new UserCredentials(1L, "hash", "USER"),
+                new UserCredentials(1L, "hash", "ADMIN")));
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername("serega");
+
+        assertEquals(1L, ((CustomUserDetails) userDetails).getId());
+        assertEquals("serega", userDetails.getUsername());
+        assertEquals("hash", userDetails.getPassword());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet()));
+        verify(userRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername: Пользователь без ролей получает пустой список прав")
+    void loadUserByUsername_Success_NoRoles() {
+        when(userRepository.findCredentialsByUsername("serega"))
+                .thenReturn(List.of(new UserCredentials(1L, "hash", null)));
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername("serega");
+
+        assertTrue(userDetails.getAuthorities().isEmpty());
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername: Пользователь не найден")
+    void loadUserByUsername_Failure_UserNotFound() {
+        when(userRepository.findCredentialsByUsername("ghost")).thenReturn(List.of());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+    }
+
+}
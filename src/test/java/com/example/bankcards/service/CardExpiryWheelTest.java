@@ -0,0 +1,167 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestContainer;
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardBatchRepository;
+import com.example.bankcards.repository.CardKeyIndex;
+import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"scheduling.enabled=false"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@ActiveProfiles("test")
+class CardExpiryWheelTest extends TestContainer {
+
+    @Autowired
+    private CardExpiryWheel cardExpiryWheel;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardKeyIndex cardKeyIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JobCoordinator jobCoordinator;
+
+    @Autowired
+    private CardBatchRepository cardBatchRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+
+        Role role = roleRepository.findByName("USER")
+                .orElseThrow(() -> new RuntimeException("USER Role not found!"));
+        User user = userRepository.save(User.builder()
+                .username("wheel")
+                .fullName("Wheel User")
+                .password("password123")
+                .roles(Set.of(role))
+                .build());
+        userId = user.getId();
+
+        // Cached contexts of other test classes are nodes of their own; end the session of the one holding the
+        // wheel, like a node that dies, so that this one can take it over.
+        jdbcTemplate.queryForList("SELECT pg_terminate_backend(pid, 5000) FROM pg_locks WHERE locktype = 'advisory' " +
+                "AND classid = CAST(hashtext('cards.expiry.wheel') AS oid) AND objid = CAST(-1 AS oid) " +
+                "AND objsubid = 2", Boolean.class);
+        // Every test starts from an empty wheel: the wheel drops its cards when it finds another node holding it.
+        JobCoordinator otherCoordinator = new JobCoordinator(dataSource);
+        assertThat(otherCoordinator.holdExclusive("cards.expiry.wheel")).isTrue();
+        cardExpiryWheel.load();
+        otherCoordinator.releaseAll();
+    }
+
+    @Test
+    @DisplayName("tick: Карта переводится в EXPIRED по наступлении срока, а не при следующем обходе")
+    void tick_ExpiresCardOnceDue() throws InterruptedException {
+        cardService.createCard(new CreateCardRequest("7000000000000001", userId));
+        cardService.createCard(new CreateCardRequest("7000000000000002", userId));
+        cardService.createCard(new CreateCardRequest("7000000000000003", userId));
+        jdbcTemplate.update("UPDATE cards SET expiration_date = now() + interval '1 second' WHERE card_key = 7000000000000001");
+        jdbcTemplate.update("UPDATE cards SET status = 'BLOCKED', expiration_date = now() - interval '1 minute' " +
+                "WHERE card_key = 7000000000000002");
+
+        cardExpiryWheel.load();
+        cardExpiryWheel.tick();
+
+        assertThat(statusOf(7000000000000001L)).isEqualTo("ACTIVE");
+        assertThat(statusOf(7000000000000002L)).isEqualTo("EXPIRED");
+
+        Thread.sleep(2000);
+        cardExpiryWheel.tick();
+
+        assertThat(statusOf(7000000000000001L)).isEqualTo("EXPIRED");
+        assertThat(statusOf(7000000000000003L)).isEqualTo("ACTIVE");
+        assertThat(cardKeyIndex.find("7000000000000001", 7000000000000001L).status()).isEqualTo(CardStatus.EXPIRED);
+        assertThat(cardExpiryWheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("tick: Карта, заблокированная транзакцией в момент срока, истекает на следующем тике")
+    void tick_LockedCardRetriedOnNextTick() throws SQLException {
+        cardService.createCard(new CreateCardRequest("7000000000000005", userId));
+        jdbcTemplate.update("UPDATE cards SET expiration_date = now() - interval '1 second' WHERE card_key = 7000000000000005");
+        cardExpiryWheel.load();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.createStatement().execute("SELECT id FROM cards WHERE card_key = 7000000000000005 FOR UPDATE");
+            cardExpiryWheel.tick();
+            connection.rollback();
+        }
+
+        assertThat(statusOf(7000000000000005L)).isEqualTo("ACTIVE");
+        assertThat(cardExpiryWheel.size()).isOne();
+
+        cardExpiryWheel.tick();
+
+        assertThat(statusOf(7000000000000005L)).isEqualTo("EXPIRED");
+        assertThat(cardExpiryWheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("load: Колесо другого узла остаётся пустым, пока колесо удерживает этот узел")
+    void load_OnlyHoldingNodeLoads() {
+        cardService.createCard(new CreateCardRequest("7000000000000004", userId));
+        jdbcTemplate.update("UPDATE cards SET expiration_date = now() + interval '1 minute' WHERE card_key = 7000000000000004");
+        JobCoordinator otherCoordinator = new JobCoordinator(dataSource);
+        CardExpiryWheel otherNode = new CardExpiryWheel(cardBatchRepository, cardKeyIndex, otherCoordinator,
+                transactionManager, new SimpleMeterRegistry(), 1000, Duration.ofHours(2), 1000);
+
+        assertThat(jobCoordinator.holdExclusive("cards.expiry.wheel")).isTrue();
+        otherNode.load();
+
+        assertThat(otherNode.size()).isZero();
+
+        jobCoordinator.releaseAll();
+        otherNode.load();
+        otherCoordinator.releaseAll();
+
+        assertThat(otherNode.size()).isPositive();
+    }
+
+    private String statusOf(long cardKey) {
+        return jdbcTemplate.queryForObject("SELECT status FROM cards WHERE card_key = ?", String.class, cardKey);
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardNumberRangeRepository;
+import com.example.bankcards.util.LuhnUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardNumberAllocatorTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Test
+    @DisplayName("allocate: Узлы получают непересекающиеся номера с верной контрольной цифрой")
+    void allocate_NodesGetDisjointLuhnValidNumbers() {
+        CardNumberRangeRepository repository = sharedRanges(new AtomicLong());
+        CardNumberAllocator first = new CardNumberAllocator(repository, transactionManager, "220070", 3);
+        CardNumberAllocator second = new CardNumberAllocator(repository, transactionManager, "220070", 3);
+
+        List<String> cardNums = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            cardNums.add(first.allocate());
+            cardNums.addAll(second.allocate(2));
+        }
+
+        assertEquals("2200700000000009", cardNums.get(0));
+        assertEquals(cardNums.size(), new HashSet<>(cardNums).size());
+        for (String cardNum : cardNums) {
+            assertEquals(16, cardNum.length());
+            assertTrue(first.isReserved(cardNum));
+            assertTrue(LuhnUtil.isValid(cardNum));
+        }
+        // 10 single numbers and 10 pairs out of ranges of 3: 4 ranges for the first node, 7 for the second.
+        verify(repository, times(11)).lease("220070", 3L);
+    }
+
+    @Test
+    @DisplayName("allocate: Большой запрос арендует диапазон целиком за один раз")
+    void allocate_LargeCount_LeasesOneRange() {
+        CardNumberRangeRepository repository = sharedRanges(new AtomicLong());
+        CardNumberAllocator allocator = new CardNumberAllocator(repository, transactionManager, "220070", 3);
+
+        Set<String> cardNums = new HashSet<>(allocator.allocate(100));
+
+        assertEquals(100, cardNums.size());
+        verify(repository, times(1)).lease("220070", 100L);
+    }
+
+    @Test
+    @DisplayName("allocate: Ошибка - Номера с префиксом закончились")
+    void allocate_Failure_Exhausted() {
+        CardNumberAllocator allocator = new CardNumberAllocator(sharedRanges(new AtomicLong(999_999_998L)),
+                transactionManager, "220070", 3);
+
+        assertThrows(IllegalStateException.class, allocator::allocate);
+    }
+
+    @Test
+    @DisplayName("isReserved: Номер с чужим префиксом не зарезервирован")
+    void isReserved_OtherPrefix_False() {
+        CardNumberAllocator allocator = new CardNumberAllocator(mock(CardNumberRangeRepository.class),
+                transactionManager, "220070", 3);
+
+        assertFalse(allocator.isReserved("1111222233334444"));
+        assertFalse(LuhnUtil.isValid("4539578763621487"));
+        assertTrue(LuhnUtil.isValid("4539578763621486"));
+    }
+
+    @Test
+    @DisplayName("CardNumberAllocator: Префикс должен состоять из шести цифр")
+    void constructor_InvalidPrefix_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new CardNumberAllocator(
+                mock(CardNumberRangeRepository.class), transactionManager, "22007A", 3));
+    }
+
+    private static CardNumberRangeRepository sharedRanges(AtomicLong nextAccount) {
+        CardNumberRangeRepository repository = mock(CardNumberRangeRepository.class);
+        when(repository.lease(eq("220070"), anyLong()))
+                .thenAnswer(invocation -> nextAccount.getAndAdd(invocation.getArgument(1, Long.class)));
+        return repository;
+    }
+
+}
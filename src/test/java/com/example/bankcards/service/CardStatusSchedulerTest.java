@@ -0,0 +1,115 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestContainer;
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardKeyIndex;
+import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"scheduling.enabled=false", "scheduling.chunkSize=2", "scheduling.partitions=2"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@ActiveProfiles("test")
+class CardStatusSchedulerTest extends TestContainer {
+
+    @Autowired
+    private CardStatusScheduler cardStatusScheduler;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardKeyIndex cardKeyIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+
+        Role role = roleRepository.findByName("USER")
+                .orElseThrow(() -> new RuntimeException("USER Role not found!"));
+        User user = userRepository.save(User.builder()
+                .username("expiry")
+                .fullName("Expiry User")
+                .password("password123")
+                .roles(Set.of(role))
+                .build());
+        userId = user.getId();
+    }
+
+    @Test
+    @DisplayName("updateExpiredCards: Просроченные карты переводятся в EXPIRED пачками, остальные не меняются")
+    void updateExpiredCards_ExpiresOnlyPastCards() {
+        for (int i = 0; i < 7; i++) {
+            cardService.createCard(new CreateCardRequest("500000000000000" + i, userId));
+        }
+        jdbcTemplate.update("UPDATE cards SET expiration_date = now() - make_interval(days => 1 + CAST(card_key % 10 AS INT)) " +
+                "WHERE card_key < 5000000000000005");
+        jdbcTemplate.update("UPDATE cards SET status = 'BLOCKED' WHERE card_key = 5000000000000001");
+
+        cardStatusScheduler.updateExpiredCards();
+
+        assertThat(jdbcTemplate.queryForList("SELECT card_key FROM cards WHERE status = 'EXPIRED' ORDER BY card_key", Long.class))
+                .containsExactly(5000000000000000L, 5000000000000001L, 5000000000000002L, 5000000000000003L, 5000000000000004L);
+        assertThat(jdbcTemplate.queryForList("SELECT card_key FROM cards WHERE status = 'ACTIVE' ORDER BY card_key", Long.class))
+                .containsExactly(5000000000000005L, 5000000000000006L);
+        assertThat(cardKeyIndex.find("5000000000000003", 5000000000000003L).status()).isEqualTo(CardStatus.EXPIRED);
+        assertThat(cardKeyIndex.find("5000000000000005", 5000000000000005L).status()).isEqualTo(CardStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("updateExpiredCards: Партиция, занятая другим узлом, пропускается")
+    void updateExpiredCards_SkipsPartitionLockedByAnotherNode() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            cardService.createCard(new CreateCardRequest("600000000000000" + i, userId));
+        }
+        jdbcTemplate.update("UPDATE cards SET expiration_date = now() - interval '1 day'");
+
+        try (Connection otherNode = dataSource.getConnection(); Statement statement = otherNode.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(hashtext('cards.expiry'), 1)");
+            cardStatusScheduler.updateExpiredCards();
+            statement.execute("SELECT pg_advisory_unlock_all()");
+        }
+
+        List<Long> expired = jdbcTemplate.queryForList("SELECT id FROM cards WHERE status = 'EXPIRED'", Long.class);
+        List<Long> active = jdbcTemplate.queryForList("SELECT id FROM cards WHERE status = 'ACTIVE'", Long.class);
+        assertThat(expired).isNotEmpty().allSatisfy(id -> assertThat(id % 2).isZero());
+        assertThat(active).isNotEmpty().allSatisfy(id -> assertThat(id % 2).isOne());
+
+        cardStatusScheduler.updateExpiredCards();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM cards WHERE status = 'ACTIVE'", Long.class)).isZero();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.projection.IdempotentResponse;
+import com.example.bankcards.exception.IdempotencyKeyReusedException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final String KEY = "retry-me";
+    private static final String REQUEST = "deposit|1111222233334444|100";
+
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final AtomicInteger executions = new AtomicInteger();
+    private final Supplier<String> action = () -> "done " + executions.incrementAndGet();
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        idempotencyService = new IdempotencyService(repository, transactionManager, new SimpleMeterRegistry(),
+                Duration.ofHours(24), 100, 3600000);
+    }
+
+    @Test
+    @DisplayName("execute: Повтор запроса отвечает из памяти без выполнения и обращения к базе данных")
+    void execute_Retry_AnsweredFromCache() {
+        when(repository.claim(eq(USER_ID), eq(KEY), anyLong(), any(), any())).thenReturn(1);
+
+        IdempotencyService.Result first = idempotencyService.execute(USER_ID, KEY, REQUEST, action);
+        IdempotencyService.Result retry = idempotencyService.execute(USER_ID, KEY, REQUEST, action);
+
+        assertEquals("done 1", first.response());
+        assertFalse(first.replayed());
+        assertEquals("done 1", retry.response());
+        assertTrue(retry.replayed());
+        assertEquals(1, executions.get());
+        verify(repository, times(1)).claim(eq(USER_ID), eq(KEY), anyLong(), any(), any());
+        verify(repository).complete(USER_ID, KEY, "done 1");
+        verify(repository, never()).find(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("execute: Ключ из базы данных отвечает сохранённым ответом без выполнения")
+    void execute_StoredKey_ReplaysStoredResponse() throws NoSuchAlgorithmException {
+        when(repository.claim(eq(USER_ID), eq(KEY), anyLong(), any(), any())).thenReturn(0);
+        when(repository.find(eq(USER_ID), eq(KEY), any())).thenReturn(Optional.of(storedResponse()));
+
+        IdempotencyService.Result result = idempotencyService.execute(USER_ID, KEY, REQUEST, action);
+
+        assertEquals("done on another node", result.response());
+        assertTrue(result.replayed());
+        assertEquals(0, executions.get());
+        verify(repository, never()).complete(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("execute: Ошибка выполнения не сохраняет ответ, повтор выполняется заново")
+    void execute_ActionFails_KeyNotCompleted() {
+        when(repository.claim(eq(USER_ID), eq(KEY), anyLong(), any(), any())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(USER_ID, KEY, REQUEST, () -> {
+            throw new IllegalStateException("Insufficient funds");
+        }));
+        IdempotencyService.Result retry = idempotencyService.execute(USER_ID, KEY, REQUEST, action);
+
+        assertEquals("done 1", retry.response());
+        assertFalse(retry.replayed());
+        verify(repository, times(1)).complete(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("execute: Ошибка - Ключ уже использован для другого запроса")
+    void execute_Failure_KeyReusedForOtherRequest() throws NoSuchAlgorithmException {
+        when(repository.claim(eq(USER_ID), eq(KEY), anyLong(), any(), any())).thenReturn(0);
+        when(repository.find(eq(USER_ID), eq(KEY), any())).thenReturn(Optional.of(storedResponse()));
+
+        Exception exception = assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotencyService.execute(USER_ID, KEY, "deposit|1111222233334444|200", action));
+
+        assertEquals("The Idempotency-Key has already been used for another request!", exception.getMessage());
+        assertEquals(0, executions.get());
+    }
+
+    private static IdempotentResponse storedResponse() throws NoSuchAlgorithmException {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(REQUEST.getBytes(StandardCharsets.UTF_8));
+        return new IdempotentResponse(ByteBuffer.wrap(hash).getLong(), "done on another node");
+    }
+
+}
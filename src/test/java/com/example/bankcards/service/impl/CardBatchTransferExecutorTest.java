@@ -0,0 +1,66 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.CardKey;
+import com.example.bankcards.dto.projection.TransferItem;
+import com.example.bankcards.dto.response.BatchTransferResult;
+import com.example.bankcards.repository.CardBatchRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardBatchTransferExecutorTest {
+
+    private static final CardKey FIRST = new CardKey(1L, "1111222233334444", 1L, CardStatus.ACTIVE);
+    private static final CardKey SECOND = new CardKey(2L, "1111222233335555", 1L, CardStatus.ACTIVE);
+
+    @Mock
+    private CardBatchRepository cardBatchRepository;
+
+    @InjectMocks
+    private CardBatchTransferExecutor cardBatchTransferExecutor;
+
+    @Test
+    @DisplayName("execute: Списание и зачисление выполняются, перевод успешен")
+    void execute_Success() {
+        List<TransferItem> chunk = List.of(new TransferItem(0, FIRST, SECOND, new BigDecimal("10.00")));
+        when(cardBatchRepository.lockInIdOrder(any())).thenReturn(Map.of(1L, CardStatus.ACTIVE, 2L, CardStatus.ACTIVE));
+        when(cardBatchRepository.debit(anyList())).thenReturn(new int[]{1});
+        when(cardBatchRepository.credit(anyList())).thenReturn(new int[]{1});
+
+        List<BatchTransferResult> results = cardBatchTransferExecutor.execute(chunk);
+
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).isSuccess());
+    }
+
+    @Test
+    @DisplayName("execute: Ошибка - Незачисленный перевод откатывает всю пачку")
+    void execute_Failure_CreditMissedRollsBackChunk() {
+        List<TransferItem> chunk = List.of(
+                new TransferItem(0, FIRST, SECOND, new BigDecimal("10.00")),
+                new TransferItem(1, SECOND, FIRST, new BigDecimal("5.00")));
+        when(cardBatchRepository.lockInIdOrder(any())).thenReturn(Map.of(1L, CardStatus.ACTIVE, 2L, CardStatus.ACTIVE));
+        when(cardBatchRepository.debit(anyList())).thenReturn(new int[]{1, 1});
+        when(cardBatchRepository.credit(anyList())).thenReturn(new int[]{1, 0});
+
+        assertThrows(JdbcUpdateAffectedIncorrectNumberOfRowsException.class, () -> cardBatchTransferExecutor.execute(chunk));
+    }
+
+}
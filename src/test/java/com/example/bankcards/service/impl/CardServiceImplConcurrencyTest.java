@@ -0,0 +1,172 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.TestContainer;
+import com.example.bankcards.dto.projection.CardView;
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ImpossibleMoneyTransferException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@ActiveProfiles("test")
+class CardServiceImplConcurrencyTest extends TestContainer {
+
+    private static final int CARDS = 4;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private Long userId;
+    private final List<String> cardNums = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        cardNums.clear();
+
+        Role role = roleRepository.findByName("USER")
+                .orElseThrow(() -> new RuntimeException("USER Role not found!"));
+        User user = userRepository.save(User.builder()
+                .username("concurrent")
+                .fullName("Concurrent User")
+                .password("password123")
+                .roles(Set.of(role))
+                .build());
+        userId = user.getId();
+
+        for (int i = 0; i < CARDS; i++) {
+            String cardNum = "400000000000000" + i;
+            cardService.createCard(new CreateCardRequest(cardNum, userId));
+            cardService.depositMoney(userId, cardNum, INITIAL_BALANCE);
+            cardNums.add(cardNum);
+        }
+    }
+
+    @Test
+    @DisplayName("transfer: Сумма денег на картах не меняется при параллельных переводах")
+    void transfer_Concurrent_TotalBalanceUnchanged() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(CARDS);
+                    int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 300));
+                    try {
+                        cardService.transfer(userId, cardNums.get(from), cardNums.get(to), amount);
+                        completed.incrementAndGet();
+                    } catch (ImpossibleMoneyTransferException e) {
+                        // insufficient funds is an expected outcome under contention
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        List<CardView> cards = cardRepository.findViewsByUserId(userId, Pageable.unpaged()).getContent();
+        BigDecimal total = cards.stream()
+                .map(CardView::balance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertThat(unexpected).isEmpty();
+        assertThat(completed.get()).isPositive();
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)));
+        assertThat(cards).allSatisfy(card -> assertThat(card.balance()).isNotNegative());
+    }
+
+    @Test
+    @DisplayName("depositMoney: Параллельные запросы с одним Idempotency-Key пополняют карту один раз")
+    void depositMoney_ConcurrentSameIdempotencyKey_DepositedOnce() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        Queue<IdempotencyService.Result> results = new ConcurrentLinkedQueue<>();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        String cardNum = cardNums.get(0);
+        String request = "deposit|" + cardNum + "|100";
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                try {
+                    results.add(idempotencyService.execute(userId, "concurrent-deposit", request, () -> {
+                        executions.incrementAndGet();
+                        cardService.depositMoney(userId, cardNum, new BigDecimal("100.00"));
+                        return "deposited";
+                    }));
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(unexpected).isEmpty();
+        assertThat(executions.get()).isOne();
+        assertThat(results).hasSize(THREADS).allSatisfy(result -> assertThat(result.response()).isEqualTo("deposited"));
+        assertThat(results).filteredOn(result -> !result.replayed()).hasSize(1);
+        assertThat(cardRepository.findBalanceByCardKeyAndUserId(Long.parseLong(cardNum), userId).orElseThrow())
+                .isEqualByComparingTo(INITIAL_BALANCE.add(new BigDecimal("100.00")));
+    }
+
+}
@@ -2,7 +2,12 @@ package com.example.bankcards.service.impl;
 
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.CardStatus;
+import com.example.bankcards.dto.projection.CardKey;
+import com.example.bankcards.dto.projection.CardView;
+import com.example.bankcards.dto.projection.TransferItem;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.request.TransferMoneyRequest;
+import com.example.bankcards.dto.response.BatchTransferResult;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardNotFoundException;
@@ -10,14 +15,19 @@ import com.example.bankcards.exception.CardNumberTakenException;
 import com.example.bankcards.exception.ImpossibleMoneyTransferException;
 import com.example.bankcards.exception.InvalidCardNumberException;
 import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.CardKeyIndex;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.RowCountEstimator;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardExpiryWheel;
+import com.example.bankcards.service.CardNumberAllocator;
 import com.example.bankcards.util.NumberEncryptionUtil;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -25,7 +35,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -34,8 +46,11 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -48,6 +63,18 @@ class CardServiceImplTest {
     private CardRepository cardRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private CardBatchTransferExecutor cardBatchTransferExecutor;
+    @Mock
+    private CardKeyIndex cardKeyIndex;
+    @Mock
+    private CardExpiryWheel cardExpiryWheel;
+    @Mock
+    private RowCountEstimator rowCountEstimator;
+    @Mock
+    private CardNumberAllocator cardNumberAllocator;
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private CardServiceImpl cardService;
@@ -58,9 +85,11 @@ class CardServiceImplTest {
     private static final Long CARD_ID = 1L;
     private static final Long USER_ID = 1L;
     private static final String CARD_NUM = "1111222233334444";
+    private static final Long CARD_KEY = 1111222233334444L;
     private static final String TRUNCATED_CARD_NUM = "**** **** **** 4444";
     private static final String INVALID_CARD_NUM = "111A222233334444";
     private static final String SECOND_CARD_NUM = "5555666677778888";
+    private static final Long SECOND_CARD_KEY = 5555666677778888L;
 
     @BeforeAll
     static void setUp() {
@@ -103,7 +132,7 @@ class CardServiceImplTest {
         CreateCardRequest request = new CreateCardRequest(CARD_NUM, USER_ID);
 
         when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
-        when(cardRepository.findByCardNum(CARD_NUM)).thenReturn(Optional.empty());
+        when(cardRepository.existsByCardKey(CARD_KEY)).thenReturn(false);
         when(cardRepository.save(any(Card.class))).thenReturn(justCreatedCard);
 
         CardDto result = cardService.createCard(request);
@@ -114,9 +143,42 @@ class CardServiceImplTest {
         assertEquals(BigDecimal.ZERO, result.getBalance());
 
         verify(userRepository, times(1)).findById(USER_ID);
-        verify(cardRepository, times(1)).findByCardNum(CARD_NUM);
+        verify(cardRepository, times(1)).existsByCardKey(CARD_KEY);
         verify(cardRepository, times(1)).save(any(Card.class));
+        verify(cardExpiryWheel, times(1)).schedule(justCreatedCard.getId(), justCreatedCard.getExpirationDate());
+
+    }
+
+    @Test
+    @DisplayName("createCard: Номер не передан - выдаётся банком без проверки уникальности")
+    void createCard_WithoutCardNum_AllocatesNumber() {
+        CreateCardRequest request = new CreateCardRequest(null, USER_ID);
+
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(cardNumberAllocator.allocate()).thenReturn(CARD_NUM);
+        when(cardRepository.save(any(Card.class))).thenReturn(justCreatedCard);
+
+        CardDto result = cardService.createCard(request);
+
+        assertEquals(NumberEncryptionUtil.encryptCardNumber(CARD_NUM), result.getCardNum());
+        verify(cardRepository, never()).existsByCardKey(any());
+        verify(cardRepository).save(argThat(saved -> CARD_NUM.equals(saved.getCardNum())));
+        // The number is leased before the transaction holds a connection.
+        InOrder order = inOrder(cardNumberAllocator, transactionManager);
+        order.verify(cardNumberAllocator).allocate();
+        order.verify(transactionManager).getTransaction(any());
+    }
 
+    @Test
+    @DisplayName("createCard: Ошибка - Номер из диапазона, выдаваемого банком")
+    void createCard_Failure_ReservedCardNumber() {
+        CreateCardRequest request = new CreateCardRequest(CARD_NUM, USER_ID);
+        when(cardNumberAllocator.isReserved(CARD_NUM)).thenReturn(true);
+
+        Exception exception = assertThrows(InvalidCardNumberException.class, () -> cardService.createCard(request));
+
+        assertEquals("The card number is in the range of numbers issued by the bank!", exception.getMessage());
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
@@ -130,7 +192,7 @@ class CardServiceImplTest {
 
         assertEquals("The card number contains characters that are not numbers!", exception.getMessage());
         verify(userRepository, never()).findById(any());
-        verify(cardRepository, never()).findByCardNum(any());
+        verify(cardRepository, never()).existsByCardKey(any());
     }
 
     @Test
@@ -144,7 +206,7 @@ class CardServiceImplTest {
         });
 
         assertEquals("User with id <<99>> not found!", exception.getMessage());
-        verify(cardRepository, never()).findByCardNum(any());
+        verify(cardRepository, never()).existsByCardKey(any());
     }
 
     @Test
@@ -152,7 +214,7 @@ class CardServiceImplTest {
     void createCard_Failure_CardNumberTaken() {
         CreateCardRequest request = new CreateCardRequest(CARD_NUM, USER_ID);
         when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
-        when(cardRepository.findByCardNum(CARD_NUM)).thenReturn(Optional.of(card));
+        when(cardRepository.existsByCardKey(CARD_KEY)).thenReturn(true);
 
         Exception exception = assertThrows(CardNumberTakenException.class, () -> {
             cardService.createCard(request);
@@ -204,19 +266,20 @@ class CardServiceImplTest {
     @Test
     @DisplayName("findById: Успешный поиск карты по ID")
     void findById_Success() {
-        when(cardRepository.findById(CARD_ID)).thenReturn(Optional.of(card));
+        when(cardRepository.findViewById(CARD_ID)).thenReturn(Optional.of(toView(card)));
 
         CardDto result = cardService.findById(CARD_ID);
 
         assertNotNull(result);
         assertEquals(TRUNCATED_CARD_NUM, result.getCardNum());
-        verify(cardRepository, times(1)).findById(CARD_ID);
+        verify(cardRepository, times(1)).findViewById(CARD_ID);
+        verify(cardRepository, never()).findById(any());
     }
 
     @Test
     @DisplayName("findById: Ошибка - Карта не найдена")
     void findById_Failure_CardNotFound() {
-        when(cardRepository.findById(99L)).thenReturn(Optional.empty());
+        when(cardRepository.findViewById(99L)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(CardNotFoundException.class, () -> {
             cardService.findById(99L);
@@ -229,9 +292,9 @@ class CardServiceImplTest {
     @Test
     @DisplayName("findAllByUserId: Успешное получение страницы карт пользователя")
     void findAllByUserId_Success() {
-        Page<Card> cardPage = new PageImpl<>(List.of(card));
+        Page<CardView> cardPage = new PageImpl<>(List.of(toView(card)));
 
-        when(cardRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(cardPage);
+        when(cardRepository.findViewsByUserId(eq(USER_ID), any(Pageable.class))).thenReturn(cardPage);
 
         Page<CardDto> result = cardService.findAllByUserId(USER_ID, 0, 10);
 
@@ -239,16 +302,16 @@ class CardServiceImplTest {
         assertEquals(1, result.getTotalElements());
         assertEquals(NumberEncryptionUtil.encryptCardNumber(CARD_NUM), result.getContent().get(0).getCardNum());
 
-        verify(cardRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+        verify(cardRepository, times(1)).findViewsByUserId(eq(USER_ID), any(Pageable.class));
     }
 
     @Test
     @DisplayName("findAll: Успешное получение страницы всех карт")
     void findAll_Success() {
-        Page<Card> cardPage = new PageImpl<>(List.of(card));
+        Page<CardView> cardPage = new PageImpl<>(List.of(toView(card)));
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(cardRepository.findAll(eq(pageable))).thenReturn(cardPage);
+        when(cardRepository.findAllViews(eq(pageable))).thenReturn(cardPage);
 
         Page<CardDto> result = cardService.findAll(0, 10);
 
@@ -256,45 +319,211 @@ class CardServiceImplTest {
         assertEquals(1, result.getTotalElements());
         assertEquals(NumberEncryptionUtil.encryptCardNumber(CARD_NUM), result.getContent().get(0).getCardNum());
 
-        verify(cardRepository, times(1)).findAll(eq(pageable));
+        verify(cardRepository, times(1)).findAllViews(eq(pageable));
+    }
+
+    @Test
+    @DisplayName("findAllWithApproximateTotal: На последней странице общее количество точное")
+    void findAllWithApproximateTotal_LastPageIsExact() {
+        Pageable pageable = PageRequest.of(2, 10);
+        when(cardRepository.findViewSlice(pageable)).thenReturn(new SliceImpl<>(List.of(toView(card)), pageable, false));
+        when(rowCountEstimator.estimate(RowCountEstimator.CARDS)).thenReturn(40L);
+
+        Page<CardDto> result = cardService.findAllWithApproximateTotal(2, 10);
+
+        assertEquals(21, result.getTotalElements());
+        assertEquals(NumberEncryptionUtil.encryptCardNumber(CARD_NUM), result.getContent().get(0).getCardNum());
+        verify(cardRepository, never()).findAllViews(any(Pageable.class));
     }
 
     @Test
     @DisplayName("transfer: Успешный перевод средств")
     void transfer_Success() {
-        Card senderCard = Card.builder()
-                .id(1L)
-                .cardNum(CARD_NUM)
-                .user(user)
-                .status(CardStatus.ACTIVE)
-                .balance(new BigDecimal("1000.00"))
-                .build();
-        Card recipientCard = Card.builder()
-                .id(2L)
-                .cardNum(SECOND_CARD_NUM)
-                .status(CardStatus.ACTIVE)
-                .balance(new BigDecimal("500.00"))
-                .build();
         BigDecimal amount = new BigDecimal("100.00");
 
-        when(cardRepository.findAllByUserId(USER_ID)).thenReturn(List.of(senderCard));
-        when(cardRepository.findByCardNum(CARD_NUM)).thenReturn(Optional.of(senderCard));
-        when(cardRepository.findByCardNum(SECOND_CARD_NUM)).thenReturn(Optional.of(recipientCard));
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY, SECOND_CARD_KEY))).thenReturn(List.of(
+                new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE),
+                new CardKey(2L, SECOND_CARD_NUM, null, CardStatus.ACTIVE)));
+        when(cardRepository.debit(1L, amount, 2L)).thenReturn(1);
+        when(cardRepository.credit(2L, amount, "TRANSFER_IN", 1L)).thenReturn(1);
+
+        cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debit(1L, amount, 2L);
+        inOrder.verify(cardRepository).credit(2L, amount, "TRANSFER_IN", 1L);
+        verify(cardRepository, never()).existsByCardKey(any());
+    }
+
+    @Test
+    @DisplayName("transfer: Активные карты берутся из индекса без запроса в базу")
+    void transfer_Success_ResolvedFromIndex() {
+        BigDecimal amount = new BigDecimal("100.00");
+
+        when(cardKeyIndex.find(CARD_NUM, CARD_KEY)).thenReturn(new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE));
+        when(cardKeyIndex.find(SECOND_CARD_NUM, SECOND_CARD_KEY)).thenReturn(new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.ACTIVE));
+        when(cardRepository.debit(1L, amount, 2L)).thenReturn(1);
+        when(cardRepository.credit(2L, amount, "TRANSFER_IN", 1L)).thenReturn(1);
+
+        cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount);
+
+        verify(cardRepository, never()).findKeysByCardKeyIn(any());
+        verify(cardRepository, times(1)).credit(2L, amount, "TRANSFER_IN", 1L);
+    }
+
+    @Test
+    @DisplayName("transfer: Неактивная карта из индекса перепроверяется в базе")
+    void transfer_Success_InactiveIndexEntryConfirmedByDatabase() {
+        BigDecimal amount = new BigDecimal("100.00");
+
+        when(cardKeyIndex.find(CARD_NUM, CARD_KEY)).thenReturn(new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE));
+        when(cardKeyIndex.find(SECOND_CARD_NUM, SECOND_CARD_KEY)).thenReturn(new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.BLOCKED));
+        when(cardRepository.findKeysByCardKeyIn(List.of(SECOND_CARD_KEY)))
+                .thenReturn(List.of(new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.ACTIVE)));
+        when(cardRepository.debit(1L, amount, 2L)).thenReturn(1);
+        when(cardRepository.credit(2L, amount, "TRANSFER_IN", 1L)).thenReturn(1);
+
+        cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount);
+
+        verify(cardRepository, times(1)).credit(2L, amount, "TRANSFER_IN", 1L);
+    }
+
+    @Test
+    @DisplayName("transfer: Карта с меньшим id блокируется первой")
+    void transfer_Success_LocksLowerIdFirst() {
+        BigDecimal amount = new BigDecimal("100.00");
+
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY, SECOND_CARD_KEY))).thenReturn(List.of(
+                new CardKey(2L, CARD_NUM, USER_ID, CardStatus.ACTIVE),
+                new CardKey(1L, SECOND_CARD_NUM, null, CardStatus.ACTIVE)));
+        when(cardRepository.debit(2L, amount, 1L)).thenReturn(1);
+        when(cardRepository.credit(1L, amount, "TRANSFER_IN", 2L)).thenReturn(1);
 
         cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount);
 
-        assertEquals(new BigDecimal("900.00"), senderCard.getBalance());
-        assertEquals(new BigDecimal("600.00"), recipientCard.getBalance());
-        verify(cardRepository, times(1)).findAllByUserId(USER_ID);
-        verify(cardRepository, times(1)).findByCardNum(CARD_NUM);
-        verify(cardRepository, times(1)).findByCardNum(SECOND_CARD_NUM);
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).credit(1L, amount, "TRANSFER_IN", 2L);
+        inOrder.verify(cardRepository).debit(2L, amount, 1L);
+    }
+
+    @Test
+    @DisplayName("transfer: Устаревшая запись индекса исправляется, перевод повторяется с картой из базы")
+    void transfer_Success_StaleIndexEntryRetriedWithDatabase() {
+        BigDecimal amount = new BigDecimal("100.00");
+
+        // The receiving card was deleted and issued again with the same number on another node.
+        when(cardKeyIndex.find(CARD_NUM, CARD_KEY)).thenReturn(new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE));
+        when(cardKeyIndex.find(SECOND_CARD_NUM, SECOND_CARD_KEY)).thenReturn(new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.ACTIVE));
+        when(cardRepository.findKeysByCardKeyIn(anyCollection())).thenReturn(List.of(
+                new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE),
+                new CardKey(7L, SECOND_CARD_NUM, 3L, CardStatus.ACTIVE)));
+        when(cardRepository.debit(1L, amount, 2L)).thenReturn(0);
+        when(cardRepository.debit(1L, amount, 7L)).thenReturn(1);
+        when(cardRepository.credit(7L, amount, "TRANSFER_IN", 1L)).thenReturn(1);
+
+        cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount);
+
+        verify(cardRepository, times(1)).credit(7L, amount, "TRANSFER_IN", 1L);
+        verify(cardRepository, never()).credit(eq(2L), any(), any(), any());
+        verify(cardKeyIndex).put(SECOND_CARD_KEY, 7L, 3L, CardStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("transfer: Карта из индекса с чужим владельцем перепроверяется в базе")
+    void transfer_Success_IndexOwnerConfirmedByDatabase() {
+        BigDecimal amount = new BigDecimal("100.00");
+
+        when(cardKeyIndex.find(CARD_NUM, CARD_KEY)).thenReturn(new CardKey(1L, CARD_NUM, 2L, CardStatus.ACTIVE));
+        when(cardKeyIndex.find(SECOND_CARD_NUM, SECOND_CARD_KEY)).thenReturn(new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.ACTIVE));
+        when(cardRepository.findKeysByCardKeyIn(anyCollection())).thenReturn(List.of(
+                new CardKey(5L, CARD_NUM, USER_ID, CardStatus.ACTIVE),
+                new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.ACTIVE)));
+        when(cardRepository.credit(2L, amount, "TRANSFER_IN", 5L)).thenReturn(1);
+        when(cardRepository.debit(5L, amount, 2L)).thenReturn(1);
+
+        cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount);
+
+        verify(cardRepository, times(1)).debit(5L, amount, 2L);
+        verify(cardKeyIndex).put(CARD_KEY, 5L, USER_ID, CardStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("transfer: Ошибка - Отказ по актуальной записи индекса не повторяется")
+    void transfer_Failure_ConfirmedIndexEntryNotRetried() {
+        BigDecimal amount = new BigDecimal("100.00");
+
+        when(cardKeyIndex.find(CARD_NUM, CARD_KEY)).thenReturn(new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE));
+        when(cardKeyIndex.find(SECOND_CARD_NUM, SECOND_CARD_KEY)).thenReturn(new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.ACTIVE));
+        when(cardRepository.findKeysByCardKeyIn(anyCollection())).thenReturn(List.of(
+                new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE),
+                new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.ACTIVE)));
+        when(cardRepository.debit(1L, amount, 2L)).thenReturn(0);
+
+        Exception exception = assertThrows(ImpossibleMoneyTransferException.class,
+                () -> cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount));
+
+        assertEquals("Insufficient funds on the sender's card.", exception.getMessage());
+        verify(cardRepository, times(1)).debit(1L, amount, 2L);
+        verify(cardRepository, never()).credit(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("depositMoney: Удалённая на другом узле карта вытесняется из индекса")
+    void depositMoney_Failure_DeletedCardEvictedFromIndex() {
+        BigDecimal amount = new BigDecimal("50.00");
+
+        when(cardKeyIndex.find(CARD_NUM, CARD_KEY)).thenReturn(new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE));
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY))).thenReturn(List.of());
+        when(cardRepository.credit(1L, amount, "DEPOSIT", null)).thenReturn(0);
+
+        Exception exception = assertThrows(ImpossibleMoneyTransferException.class,
+                () -> cardService.depositMoney(USER_ID, CARD_NUM, amount));
+
+        assertEquals("Card with number <<" + CARD_NUM + ">> doesn't belong to this user!", exception.getMessage());
+        verify(cardKeyIndex).remove(CARD_KEY);
+    }
+
+    @Test
+    @DisplayName("transferBatch: Результат для каждого перевода, валидные переводы выполняются пачками")
+    void transferBatch_ResultPerItem() {
+        String foreignCardNum = "9999888877776666";
+        CardKey sender = new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE);
+        CardKey receiver = new CardKey(2L, SECOND_CARD_NUM, 2L, CardStatus.ACTIVE);
+        CardKey foreign = new CardKey(3L, foreignCardNum, 2L, CardStatus.ACTIVE);
+        BigDecimal amount = new BigDecimal("100.00");
+        ReflectionTestUtils.setField(cardService, "batchChunkSize", 2);
+
+        when(cardRepository.findKeysByCardKeyIn(anyCollection())).thenReturn(List.of(sender, receiver, foreign));
+        when(cardBatchTransferExecutor.execute(any())).thenAnswer(invocation -> {
+            List<TransferItem> chunk = invocation.getArgument(0);
+            return chunk.stream().map(item -> BatchTransferResult.success(item.index())).toList();
+        });
+
+        List<BatchTransferResult> results = cardService.transferBatch(USER_ID, List.of(
+                new TransferMoneyRequest(CARD_NUM, SECOND_CARD_NUM, amount),
+                new TransferMoneyRequest(foreignCardNum, SECOND_CARD_NUM, amount),
+                new TransferMoneyRequest(CARD_NUM, INVALID_CARD_NUM, amount),
+                new TransferMoneyRequest(CARD_NUM, SECOND_CARD_NUM, BigDecimal.ZERO),
+                new TransferMoneyRequest(CARD_NUM, foreignCardNum, amount),
+                new TransferMoneyRequest(CARD_NUM, SECOND_CARD_NUM, amount)));
+
+        assertEquals(6, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Card with number <<" + foreignCardNum + ">> doesn't belong to this user!", results.get(1).getError());
+        assertEquals("The card number contains characters that are not numbers!", results.get(2).getError());
+        assertEquals("Transfer amount must be greater than zero.", results.get(3).getError());
+        assertTrue(results.get(4).isSuccess());
+        assertTrue(results.get(5).isSuccess());
+        verify(cardRepository, times(1)).findKeysByCardKeyIn(anyCollection());
+        verify(cardBatchTransferExecutor, times(2)).execute(any());
     }
 
     @Test
     @DisplayName("transfer: Ошибка - Карта отправителя не принадлежит пользователю")
     void transfer_Failure_SenderCardNotBelongToUser() {
-        Card otherCard = Card.builder().id(2L).cardNum(SECOND_CARD_NUM).user(user).status(CardStatus.ACTIVE).balance(new BigDecimal("1000.00")).build();
-        when(cardRepository.findAllByUserId(USER_ID)).thenReturn(List.of(otherCard));
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY, SECOND_CARD_KEY))).thenReturn(List.of(
+                new CardKey(1L, CARD_NUM, 2L, CardStatus.ACTIVE),
+                new CardKey(2L, SECOND_CARD_NUM, USER_ID, CardStatus.ACTIVE)));
 
         Exception exception = assertThrows(ImpossibleMoneyTransferException.class, () -> {
             cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, new BigDecimal("100.00"));
@@ -316,110 +545,85 @@ class CardServiceImplTest {
     @Test
     @DisplayName("transfer: Ошибка - Недостаточно средств")
     void transfer_Failure_InsufficientFunds() {
-        Card senderCard = Card.builder()
-                .id(1L).cardNum(CARD_NUM)
-                .user(user)
-                .status(CardStatus.ACTIVE)
-                .balance(new BigDecimal("50.00"))
-                .build();
-
-        Card recipientCard = Card.builder()
-                .id(2L)
-                .cardNum(SECOND_CARD_NUM)
-                .status(CardStatus.ACTIVE)
-                .balance(new BigDecimal("500.00"))
-                .build();
         BigDecimal amount = new BigDecimal("100.00");
 
-        when(cardRepository.findAllByUserId(USER_ID)).thenReturn(List.of(senderCard));
-        when(cardRepository.findByCardNum(CARD_NUM)).thenReturn(Optional.of(senderCard));
-        when(cardRepository.findByCardNum(SECOND_CARD_NUM)).thenReturn(Optional.of(recipientCard));
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY, SECOND_CARD_KEY))).thenReturn(List.of(
+                new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE),
+                new CardKey(2L, SECOND_CARD_NUM, null, CardStatus.ACTIVE)));
+        when(cardRepository.debit(1L, amount, 2L)).thenReturn(0);
 
         Exception exception = assertThrows(ImpossibleMoneyTransferException.class, () -> {
             cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount);
         });
 
         assertEquals("Insufficient funds on the sender's card.", exception.getMessage());
+        verify(cardRepository, never()).credit(any(), any(), any(), any());
     }
 
     @Test
     @DisplayName("transfer: Ошибка - Карта-получатель заблокирована")
     void transfer_Failure_RecipientCardBlocked() {
-        Card senderCard = Card.builder()
-                .id(1L)
-                .cardNum(CARD_NUM)
-                .user(user)
-                .status(CardStatus.ACTIVE)
-                .balance(new BigDecimal("1000.00"))
-                .build();
-        Card recipientCard = Card.builder().
-                id(2L)
-                .cardNum(SECOND_CARD_NUM)
-                .status(CardStatus.BLOCKED)
-                .balance(new BigDecimal("500.00"))
-                .build();
         BigDecimal amount = new BigDecimal("100.00");
 
-        when(cardRepository.findAllByUserId(USER_ID)).thenReturn(List.of(senderCard));
-        when(cardRepository.findByCardNum(CARD_NUM)).thenReturn(Optional.of(senderCard));
-        when(cardRepository.findByCardNum(SECOND_CARD_NUM)).thenReturn(Optional.of(recipientCard));
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY, SECOND_CARD_KEY))).thenReturn(List.of(
+                new CardKey(1L, CARD_NUM, USER_ID, CardStatus.ACTIVE),
+                new CardKey(2L, SECOND_CARD_NUM, null, CardStatus.BLOCKED)));
 
         Exception exception = assertThrows(ImpossibleMoneyTransferException.class, () -> {
             cardService.transfer(USER_ID, CARD_NUM, SECOND_CARD_NUM, amount);
         });
 
         assertEquals("One of the cards is blocked or expired.", exception.getMessage());
+        verify(cardRepository, never()).debit(any(), any(), any());
     }
 
     @Test
     @DisplayName("depositMoney: Успешное пополнение карты")
     void depositMoney_Success() {
-        Card depositCard = Card.builder()
-                .id(CARD_ID)
-                .cardNum(CARD_NUM)
-                .user(user)
-                .status(CardStatus.ACTIVE)
-                .balance(new BigDecimal("100.00"))
-                .build();
         BigDecimal amount = new BigDecimal("50.00");
 
-        when(cardRepository.findAllByUserId(USER_ID)).thenReturn(List.of(depositCard));
-        when(cardRepository.findByCardNum(CARD_NUM)).thenReturn(Optional.of(depositCard));
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY)))
+                .thenReturn(List.of(new CardKey(CARD_ID, CARD_NUM, USER_ID, CardStatus.ACTIVE)));
+        when(cardRepository.credit(CARD_ID, amount, "DEPOSIT", null)).thenReturn(1);
 
         cardService.depositMoney(USER_ID, CARD_NUM, amount);
 
-        assertEquals(new BigDecimal("150.00"), depositCard.getBalance());
-        verify(cardRepository, times(1)).findAllByUserId(USER_ID);
-        verify(cardRepository, times(1)).findByCardNum(CARD_NUM);
+        verify(cardRepository, times(1)).credit(CARD_ID, amount, "DEPOSIT", null);
     }
 
     @Test
     @DisplayName("depositMoney: Ошибка - Карта заблокирована/просрочена")
     void depositMoney_Failure_CardBlocked() {
-        Card blockedCard = Card.builder()
-                .id(CARD_ID)
-                .cardNum(CARD_NUM)
-                .user(user)
-                .status(CardStatus.BLOCKED)
-                .balance(new BigDecimal("100.00"))
-                .build();
         BigDecimal amount = new BigDecimal("50.00");
 
-        when(cardRepository.findAllByUserId(USER_ID)).thenReturn(List.of(blockedCard));
-        when(cardRepository.findByCardNum(CARD_NUM)).thenReturn(Optional.of(blockedCard));
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY)))
+                .thenReturn(List.of(new CardKey(CARD_ID, CARD_NUM, USER_ID, CardStatus.BLOCKED)));
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             cardService.depositMoney(USER_ID, CARD_NUM, amount);
         });
 
         assertEquals("You cannot deposit money onto this card: This card is blocked or expired.", exception.getMessage());
+        verify(cardRepository, never()).credit(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("depositMoney: Ошибка - Карта не принадлежит пользователю")
+    void depositMoney_Failure_CardNotBelongToUser() {
+        when(cardRepository.findKeysByCardKeyIn(List.of(CARD_KEY)))
+                .thenReturn(List.of(new CardKey(CARD_ID, CARD_NUM, 2L, CardStatus.ACTIVE)));
+
+        Exception exception = assertThrows(ImpossibleMoneyTransferException.class, () -> {
+            cardService.depositMoney(USER_ID, CARD_NUM, new BigDecimal("50.00"));
+        });
+
+        assertEquals("Card with number <<" + CARD_NUM + ">> doesn't belong to this user!", exception.getMessage());
+        verify(cardRepository, never()).credit(any(), any(), any(), any());
     }
 
     @Test
     @DisplayName("depositMoney: Ошибка - Сумма пополнения меньше или равна нулю")
     void depositMoney_Failure_InvalidAmount() {
-        when(cardRepository.findAllByUserId(USER_ID)).thenReturn(List.of(card));
-
         Exception exception = assertThrows(IllegalArgumentException.class, () -> {
             cardService.depositMoney(USER_ID, CARD_NUM, BigDecimal.ZERO);
         });
@@ -492,19 +696,12 @@ class CardServiceImplTest {
     @Test
     @DisplayName("getBalance: Успешное получение баланса")
     void getBalance_Success() {
-        Card cardWithBalance = Card.builder()
-                .id(CARD_ID)
-                .cardNum(CARD_NUM)
-                .user(user)
-                .balance(new BigDecimal("123.45"))
-                .build();
-
-        when(cardRepository.findByCardNumAndUser_Id(CARD_NUM, USER_ID)).thenReturn(Optional.of(cardWithBalance));
+        when(cardRepository.findBalanceByCardKeyAndUserId(CARD_KEY, USER_ID)).thenReturn(Optional.of(new BigDecimal("123.45")));
 
         BigDecimal balance = cardService.getBalance(USER_ID, CARD_NUM);
 
         assertEquals(new BigDecimal("123.45"), balance);
-        verify(cardRepository, times(1)).findByCardNumAndUser_Id(CARD_NUM, USER_ID);
+        verify(cardRepository, times(1)).findBalanceByCardKeyAndUserId(CARD_KEY, USER_ID);
     }
 
     @Test
@@ -520,7 +717,7 @@ class CardServiceImplTest {
     @Test
     @DisplayName("getBalance: Ошибка - Карта не найдена или не принадлежит пользователю")
     void getBalance_Failure_CardNotFoundOrNotOwned() {
-        when(cardRepository.findByCardNumAndUser_Id(CARD_NUM, USER_ID)).thenReturn(Optional.empty());
+        when(cardRepository.findBalanceByCardKeyAndUserId(CARD_KEY, USER_ID)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(CardNotFoundException.class, () -> {
             cardService.getBalance(USER_ID, CARD_NUM);
@@ -530,4 +727,9 @@ class CardServiceImplTest {
                 + ">> doesn't belong to this user or not found!", exception.getMessage());
     }
 
-}
\ No newline at end of file
+    private static CardView toView(Card card) {
+        return new CardView(card.getId(), card.getCardNum(), card.getOwner(), card.getExpirationDate(),
+                card.getStatus(), card.getBalance());
+    }
+
+}
@@ -6,6 +6,7 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.exception.UsernameTakenException;
 import com.example.bankcards.repository.RoleRepository;
+import com.example.bankcards.repository.RowCountEstimator;
 import com.example.bankcards.repository.UserRepository;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -16,7 +17,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +28,7 @@ import java.util.Set;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -36,6 +40,8 @@ class UserServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private RoleRepository roleRepository;
+    @Mock
+    private RowCountEstimator rowCountEstimator;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -66,7 +72,7 @@ class UserServiceImplTest {
     void createUser_Success() {
 
         when(roleRepository.findByName("USER")).thenReturn(Optional.of(role));
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(userRepository.existsByUsername(username)).thenReturn(false);
         when(userRepository.save(any())).thenReturn(user);
 
         UserDto userDto = userService.createUser(fullName, username, password);
@@ -76,7 +82,7 @@ class UserServiceImplTest {
         assertEquals(role.getName(), userDto.getRoles().stream().findFirst().get().getName());
 
         verify(roleRepository, times(1)).findByName("USER");
-        verify(userRepository, times(1)).findByUsername(username);
+        verify(userRepository, times(1)).existsByUsername(username);
         verify(userRepository, times(1)).save(any());
     }
 
@@ -85,7 +91,7 @@ class UserServiceImplTest {
     void createUser_Failure_DuplicateUsername() {
 
         when(roleRepository.findByName("USER")).thenReturn(Optional.of(role));
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(userRepository.existsByUsername(username)).thenReturn(true);
         Exception exception = assertThrows(UsernameTakenException.class, () -> {
             userService.createUser(fullName, username, password);
         });
@@ -165,4 +171,18 @@ class UserServiceImplTest {
         verify(userRepository, times(1)).findAll(any(Pageable.class));
     }
 
+    @Test
+    @DisplayName("findAllWithApproximateTotal: Общее количество берётся из оценки без COUNT-запроса")
+    void findAllWithApproximateTotal_UsesEstimate() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(List.of(user), pageable, true));
+        when(rowCountEstimator.estimate(RowCountEstimator.USERS)).thenReturn(5000L);
+
+        Page<UserDto> userDtoPage = userService.findAllWithApproximateTotal(0, 1);
+
+        assertEquals(5000L, userDtoPage.getTotalElements());
+        assertEquals(user.getUsername(), userDtoPage.getContent().get(0).getUsername());
+        verify(userRepository, never()).findAll(any(Pageable.class));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    @DisplayName("advance: Каждый элемент срабатывает ровно один раз при первом сдвиге за его срок")
+    void advance_FiresEachItemOnceAtDeadline() {
+        // 4 slots on 3 levels keep the wheel tiny, so cascading and wrap-around happen all the time.
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 3, 1000);
+        Map<Integer, Long> pending = new HashMap<>();
+        Random random = new Random(42);
+        long now = 1000;
+
+        for (int i = 0; i < 100_000; i++) {
+            if (random.nextBoolean()) {
+                long deadline = now - 50 + random.nextInt(50 + (int) wheel.horizonMillis());
+                assertTrue(wheel.add(deadline, i));
+                pending.put(i, deadline);
+            } else {
+                now += random.nextInt(40);
+                long advancedTo = now;
+                Set<Integer> fired = new HashSet<>();
+                wheel.advance(now, item -> assertTrue(fired.add(item)));
+
+                Set<Integer> expected = new HashSet<>();
+                pending.forEach((item, deadline) -> {
+                    if (deadline / 10 <= advancedTo / 10) {
+                        expected.add(item);
+                    }
+                });
+                assertEquals(expected, fired);
+                expected.forEach(pending::remove);
+            }
+            assertEquals(pending.size(), wheel.size());
+        }
+    }
+
+    @Test
+    @DisplayName("add: Срок за пределами колеса не принимается")
+    void add_BeyondRange_Rejected() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 64, 2, 0);
+        List<String> fired = new ArrayList<>();
+
+        assertFalse(wheel.add(64 * 64 * 1000, "late"));
+        assertTrue(wheel.add(wheel.horizonMillis(), "edge"));
+        assertTrue(wheel.add(-5000, "overdue"));
+
+        wheel.advance(0, fired::add);
+        assertEquals(List.of("overdue"), fired);
+        wheel.advance(wheel.horizonMillis(), fired::add);
+        assertEquals(List.of("overdue", "edge"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("TimingWheel: Размер колеса должен быть степенью двойки")
+    void constructor_WheelSizeNotPowerOfTwo_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(1000, 60, 4, 0));
+    }
+
+}